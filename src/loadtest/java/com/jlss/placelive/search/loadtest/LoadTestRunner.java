@@ -0,0 +1,182 @@
+package com.jlss.placelive.search.loadtest;
+
+import com.jlss.placelive.search.PlaceLiveSearchServiceApplication;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load test: starts a stub Elasticsearch and the full service in-process, seeds a data set
+ * through the REST API, then drives the scenario's traffic mix at its target rate and reports
+ * latency percentiles and achieved throughput.
+ * <p>
+ * Run with {@code mvn -P load-test test-compile exec:java -Dexec.args="--rate=150"}; see
+ * {@code scenario-default.properties} for every knob.
+ */
+public class LoadTestRunner {
+
+    private static final int SEED_CONCURRENCY = 64;
+
+    public static void main(String[] args) {
+        int status = 0;
+        try {
+            run(args);
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 1;
+        }
+        // The ES client's I/O threads outlive the context, so exit explicitly rather than wait on them.
+        System.exit(status);
+    }
+
+    private static void run(String[] args) throws Exception {
+        Scenario scenario = Scenario.fromArgs(args);
+        System.out.println("Scenario: " + scenario);
+
+        StubElasticsearchServer elasticsearch = new StubElasticsearchServer(
+                scenario.getEsLatencyMillis(), scenario.getEsJitterMillis(), scenario.getEsSearchHits());
+        elasticsearch.start();
+
+        Path snapshot = Files.createTempDirectory("load-test").resolve("trending-snapshot.json");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PlaceLiveSearchServiceApplication.class)
+                .run("--server.port=0",
+                        "--elasticsearch.host=127.0.0.1",
+                        "--elasticsearch.port=" + elasticsearch.port(),
+                        // The service does not use its datasource; keep MySQL out of the measurement.
+                        "--spring.autoconfigure.exclude="
+                                + "org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration",
+                        "--trending.snapshot-path=" + snapshot,
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.web=WARN",
+                        "--logging.level.org.elasticsearch.client=WARN");
+
+        ExecutorService clientExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "load-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+
+        try {
+            String baseUri = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port")
+                    + context.getEnvironment().getProperty("server.servlet.context-path", "")
+                    + "/api/elasticSearch";
+            Workload workload = new Workload(scenario, baseUri);
+
+            seed(client, workload.seedRequests(new Random(scenario.getSeed())));
+
+            OpenLoadDriver driver = new OpenLoadDriver(scenario, workload, client);
+            System.out.println("Warming up for " + scenario.getWarmup());
+            driver.run(scenario.getWarmup());
+            System.out.println("Measuring for " + scenario.getDuration());
+            OpenLoadDriver.Results results = driver.run(scenario.getDuration());
+
+            report(System.out, scenario, results);
+            writeHistograms(scenario.getReportDir(), results);
+            if (!elasticsearch.unhandledRequests().isEmpty()) {
+                System.out.println("Stub ES rejected: " + elasticsearch.unhandledRequests());
+            }
+        } finally {
+            context.close();
+            elasticsearch.stop();
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    private static void seed(HttpClient client, List<HttpRequest> requests) throws InterruptedException {
+        System.out.println("Seeding " + requests.size() + " documents");
+        Semaphore permits = new Semaphore(SEED_CONCURRENCY);
+        AtomicLong failed = new AtomicLong();
+        for (HttpRequest request : requests) {
+            permits.acquire();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error != null || response.statusCode() >= 400) {
+                            failed.incrementAndGet();
+                        }
+                        permits.release();
+                    });
+        }
+        permits.acquire(SEED_CONCURRENCY);
+        if (failed.get() > 0) {
+            throw new IllegalStateException(failed.get() + " of " + requests.size() + " seed requests failed");
+        }
+    }
+
+    // ------------------ Reporting ------------------
+
+    private static void report(PrintStream out, Scenario scenario, OpenLoadDriver.Results results) {
+        OpenLoadDriver.Stats total = results.total();
+        long completed = total.corrected().getTotalCount() - total.failures();
+        out.println();
+        out.printf("Offered:  %d requests in %.1fs (%.1f/s, target %.1f/s)%n",
+                results.issued(), results.scheduleSeconds(), results.issued() / results.scheduleSeconds(), scenario.getRate());
+        out.printf("Achieved: %d responses in %.1fs (%.1f/s), %d HTTP errors, %d failed (%d unfinished), peak in-flight %d%n",
+                completed, results.elapsedSeconds(), completed / results.elapsedSeconds(),
+                total.errors(), total.failures(), results.unfinished(), results.peakInFlight());
+        out.println();
+        out.println("Latency in ms, corrected for coordinated omission (service time in brackets)");
+        out.printf("%-10s %9s %16s %16s %16s %16s %16s%n", "operation", "count", "p50", "p90", "p99", "p99.9", "max");
+        for (Map.Entry<Operation, OpenLoadDriver.Stats> entry : results.byOperation().entrySet()) {
+            row(out, entry.getKey().key(), entry.getValue());
+        }
+        row(out, "all", total);
+        if (total.failures() > 0) {
+            out.printf("WARNING: %d requests failed or never completed. They are included above at no less than the"
+                    + " %s request timeout, so the tail percentiles are a lower bound.%n",
+                    total.failures(), scenario.getRequestTimeout());
+        }
+    }
+
+    private static void row(PrintStream out, String name, OpenLoadDriver.Stats stats) {
+        Histogram corrected = stats.corrected();
+        Histogram service = stats.service();
+        out.printf("%-10s %9d %16s %16s %16s %16s %16s%n", name, corrected.getTotalCount(),
+                cell(corrected.getValueAtPercentile(50), service.getValueAtPercentile(50)),
+                cell(corrected.getValueAtPercentile(90), service.getValueAtPercentile(90)),
+                cell(corrected.getValueAtPercentile(99), service.getValueAtPercentile(99)),
+                cell(corrected.getValueAtPercentile(99.9), service.getValueAtPercentile(99.9)),
+                cell(corrected.getMaxValue(), service.getMaxValue()));
+    }
+
+    private static String cell(long correctedMicros, long serviceMicros) {
+        return String.format("%.2f (%.2f)", correctedMicros / 1000.0, serviceMicros / 1000.0);
+    }
+
+    // One .hgrm per operation, loadable by the HdrHistogram plotter to compare releases side by side.
+    private static void writeHistograms(Path dir, OpenLoadDriver.Results results) throws IOException {
+        Files.createDirectories(dir);
+        for (Map.Entry<Operation, OpenLoadDriver.Stats> entry : results.byOperation().entrySet()) {
+            writeHistogram(dir.resolve(entry.getKey().key() + ".hgrm"), entry.getValue().corrected());
+        }
+        writeHistogram(dir.resolve("all.hgrm"), results.total().corrected());
+        System.out.println("Histograms written to " + dir.toAbsolutePath());
+    }
+
+    private static void writeHistogram(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            // recorded in microseconds, reported in milliseconds
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+}
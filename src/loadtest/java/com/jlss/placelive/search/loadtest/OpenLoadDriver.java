@@ -0,0 +1,254 @@
+package com.jlss.placelive.search.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load driver: requests are issued at their scheduled time whether or not earlier
+ * requests have completed, so a slow service builds a queue instead of slowing the generator down.
+ * <p>
+ * Two latencies are recorded per request. {@code corrected} runs from the time the request was
+ * scheduled to be sent, which is what a user arriving at that moment would see and is free of
+ * coordinated omission. {@code service} runs from the time it was actually sent, and is only
+ * useful for comparison: a wide gap between the two means requests queued, either because the generator
+ * fell behind or because all {@code max-connections} client connections were busy.
+ * Requests that fail, time out or are still open when the run drains are recorded in {@code corrected}
+ * at their elapsed time, and at no less than the request timeout.
+ */
+public class OpenLoadDriver {
+
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final Scenario scenario;
+    private final Workload workload;
+    private final HttpClient client;
+    private final Random random;
+    private final List<Operation> operations = new ArrayList<>();
+    private final int[] cumulativeWeights;
+
+    public OpenLoadDriver(Scenario scenario, Workload workload, HttpClient client) {
+        this.scenario = scenario;
+        this.workload = workload;
+        this.client = client;
+        this.random = new Random(scenario.getSeed());
+
+        int total = 0;
+        cumulativeWeights = new int[scenario.getMix().size()];
+        for (Map.Entry<Operation, Integer> entry : scenario.getMix().entrySet()) {
+            total += entry.getValue();
+            cumulativeWeights[operations.size()] = total;
+            operations.add(entry.getKey());
+        }
+    }
+
+    public Results run(Duration duration) throws InterruptedException {
+        Results results = new Results();
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / scenario.getRate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double next = start;
+        long sequence = 0;
+        // Requests beyond the connection cap wait here; their latency still runs from the scheduled time.
+        Semaphore connections = new Semaphore(scenario.getMaxConnections());
+        Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+        while (true) {
+            long intended = (long) next;
+            if (intended >= end) {
+                break;
+            }
+            waitUntil(intended);
+
+            Operation operation = pick();
+            HttpRequest request = workload.next(operation, random);
+            Stats stats = results.stats(operation);
+            long id = sequence++;
+            results.issued.increment();
+            results.inFlight.put(id, new Pending(stats, intended));
+            results.peakInFlight.accumulateAndGet(results.inFlight.size(), Math::max);
+
+            waiting.add(() -> {
+                long sent = System.nanoTime();
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            long done = System.nanoTime();
+                            connections.release();
+                            dispatch(waiting, connections);
+                            // the drain below may already have given up on this request and recorded it
+                            if (results.inFlight.remove(id) == null) {
+                                return;
+                            }
+                            if (error != null) {
+                                recordFailure(stats, done - intended);
+                            } else {
+                                stats.corrected.recordValue(TimeUnit.NANOSECONDS.toMicros(done - intended));
+                                stats.service.recordValue(TimeUnit.NANOSECONDS.toMicros(done - sent));
+                                if (response.statusCode() >= 400) {
+                                    stats.errors.increment();
+                                }
+                            }
+                        });
+            });
+            dispatch(waiting, connections);
+
+            next += scenario.getArrival() == Scenario.Arrival.POISSON
+                    ? -Math.log(1 - random.nextDouble()) * meanIntervalNanos
+                    : meanIntervalNanos;
+        }
+        results.scheduleNanos = System.nanoTime() - start;
+
+        // Let outstanding requests finish; anything still open after the request timeout has failed anyway.
+        long drainDeadline = System.nanoTime() + scenario.getRequestTimeout().toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (!results.inFlight.isEmpty() && System.nanoTime() < drainDeadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        waiting.clear();
+        long now = System.nanoTime();
+        for (Long id : List.copyOf(results.inFlight.keySet())) {
+            Pending pending = results.inFlight.remove(id);
+            if (pending != null) {
+                results.unfinished.increment();
+                recordFailure(pending.stats(), now - pending.intended());
+            }
+        }
+        results.elapsedNanos = now - start;
+        return results;
+    }
+
+    private static void dispatch(Queue<Runnable> waiting, Semaphore connections) {
+        while (!waiting.isEmpty() && connections.tryAcquire()) {
+            Runnable send = waiting.poll();
+            if (send == null) {
+                connections.release();
+                return;
+            }
+            send.run();
+        }
+    }
+
+    // Failed and abandoned requests are the slowest ones when the service saturates; leaving them out of
+    // the histogram would bias the tail low, so they count as taking at least the request timeout.
+    private void recordFailure(Stats stats, long elapsedNanos) {
+        long nanos = Math.max(elapsedNanos, scenario.getRequestTimeout().toNanos());
+        stats.corrected.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+        stats.failures.increment();
+    }
+
+    private Operation pick() {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return operations.get(i);
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    public static class Stats {
+        // auto-resizing, in microseconds
+        final Histogram corrected = new ConcurrentHistogram(3);
+        final Histogram service = new ConcurrentHistogram(3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder failures = new LongAdder();
+
+        public Histogram corrected() {
+            return corrected;
+        }
+
+        public Histogram service() {
+            return service;
+        }
+
+        public long errors() {
+            return errors.sum();
+        }
+
+        public long failures() {
+            return failures.sum();
+        }
+
+        void addTo(Stats total) {
+            total.corrected.add(corrected);
+            total.service.add(service);
+            total.errors.add(errors.sum());
+            total.failures.add(failures.sum());
+        }
+    }
+
+    private record Pending(Stats stats, long intended) {
+    }
+
+    public static class Results {
+        private final Map<Operation, Stats> byOperation = new EnumMap<>(Operation.class);
+        private final LongAdder issued = new LongAdder();
+        private final Map<Long, Pending> inFlight = new ConcurrentHashMap<>();
+        private final LongAdder unfinished = new LongAdder();
+        private final AtomicLong peakInFlight = new AtomicLong();
+        private long scheduleNanos;
+        private long elapsedNanos;
+
+        // Only the scheduling thread adds entries, before any callback for that operation can run.
+        private Stats stats(Operation operation) {
+            return byOperation.computeIfAbsent(operation, o -> new Stats());
+        }
+
+        public Map<Operation, Stats> byOperation() {
+            return byOperation;
+        }
+
+        public Stats total() {
+            Stats total = new Stats();
+            byOperation.values().forEach(s -> s.addTo(total));
+            return total;
+        }
+
+        public long issued() {
+            return issued.sum();
+        }
+
+        public long unfinished() {
+            return unfinished.sum();
+        }
+
+        public long peakInFlight() {
+            return peakInFlight.get();
+        }
+
+        public double scheduleSeconds() {
+            return scheduleNanos / 1e9;
+        }
+
+        public double elapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.jlss.placelive.search.loadtest;
+
+/**
+ * Request types in the traffic mix; {@link #key()} is the name used in scenario files.
+ */
+public enum Operation {
+    TRACKER("tracker"),
+    REINDEX("reindex"),
+    SEARCH("search"),
+    ENHANCED("enhanced");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+}
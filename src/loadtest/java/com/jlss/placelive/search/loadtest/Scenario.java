@@ -0,0 +1,110 @@
+package com.jlss.placelive.search.loadtest;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Load-test scenario: target rate, durations, operation mix, data set size and stub ES latency.
+ * <p>
+ * Read from {@code scenario-default.properties} on the classpath (or the file given by
+ * {@code --scenario=<path>}), then overridden by {@code --key=value} arguments, so a release
+ * can be measured against the checked-in scenario with only the knobs that matter changed.
+ */
+@Getter
+public class Scenario {
+
+    public enum Arrival { CONSTANT, POISSON }
+
+    private final double rate;
+    private final Arrival arrival;
+    private final Duration warmup;
+    private final Duration duration;
+    private final Duration requestTimeout;
+    private final int maxConnections;
+    private final Map<Operation, Integer> mix;
+    private final int places;
+    private final int geofences;
+    private final int users;
+    private final int trackers;
+    private final long esLatencyMillis;
+    private final long esJitterMillis;
+    private final int esSearchHits;
+    private final long seed;
+    private final Path reportDir;
+
+    private Scenario(Properties p) {
+        this.rate = Double.parseDouble(p.getProperty("rate"));
+        this.arrival = Arrival.valueOf(p.getProperty("arrival", "CONSTANT").toUpperCase());
+        this.warmup = Duration.parse(p.getProperty("warmup"));
+        this.duration = Duration.parse(p.getProperty("duration"));
+        this.requestTimeout = Duration.parse(p.getProperty("request-timeout"));
+        this.maxConnections = Integer.parseInt(p.getProperty("max-connections"));
+        this.mix = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            int weight = Integer.parseInt(p.getProperty("mix." + operation.key(), "0"));
+            if (weight > 0) {
+                mix.put(operation, weight);
+            }
+        }
+        this.places = Integer.parseInt(p.getProperty("data.places"));
+        this.geofences = Integer.parseInt(p.getProperty("data.geofences"));
+        this.users = Integer.parseInt(p.getProperty("data.users"));
+        this.trackers = Integer.parseInt(p.getProperty("data.trackers"));
+        this.esLatencyMillis = Long.parseLong(p.getProperty("es.latency-ms"));
+        this.esJitterMillis = Long.parseLong(p.getProperty("es.jitter-ms"));
+        this.esSearchHits = Integer.parseInt(p.getProperty("es.search-hits"));
+        this.seed = Long.parseLong(p.getProperty("seed"));
+        this.reportDir = Path.of(p.getProperty("report-dir"));
+
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("at least one mix.* weight must be positive");
+        }
+    }
+
+    public static Scenario fromArgs(String[] args) throws IOException {
+        Properties overrides = new Properties();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value but got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            overrides.setProperty(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        Properties properties = new Properties();
+        String file = overrides.getProperty("scenario");
+        if (file != null) {
+            try (Reader reader = Files.newBufferedReader(Path.of(file))) {
+                properties.load(reader);
+            }
+        } else {
+            try (InputStream in = Scenario.class.getResourceAsStream("/scenario-default.properties")) {
+                if (in == null) {
+                    throw new IllegalStateException("scenario-default.properties not on classpath");
+                }
+                properties.load(in);
+            }
+        }
+        properties.putAll(overrides);
+        return new Scenario(properties);
+    }
+
+    @Override
+    public String toString() {
+        return "rate=" + rate + "/s " + arrival + ", warmup=" + warmup + ", duration=" + duration
+                + ", mix=" + mix + ", es=" + esLatencyMillis + "ms+" + esJitterMillis + "ms"
+                + ", data=" + places + " places/" + geofences + " geofences/" + users + " users/" + trackers + " trackers";
+    }
+}
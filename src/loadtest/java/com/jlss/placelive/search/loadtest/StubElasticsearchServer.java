@@ -0,0 +1,405 @@
+package com.jlss.placelive.search.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process stand-in for Elasticsearch, speaking just enough of the REST API for
+ * the repositories and the Java client used by the service.
+ * <p>
+ * Documents are kept per index in memory, so gets, multi-gets and deletes behave like the real thing.
+ * Searches ignore the query and return the first {@code searchHits} documents of the index, which keeps
+ * response sizes realistic without reimplementing query matching; scrolls page through the whole index.
+ * Every request is delayed by {@code latencyMillis} plus a uniform random {@code jitterMillis}.
+ */
+public class StubElasticsearchServer {
+
+    static {
+        // The JDK server writes headers and body separately; without TCP_NODELAY, Nagle's algorithm and
+        // delayed ACKs add ~40ms to every response and swamp the configured latency.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Map<String, JsonNode>> indices = new ConcurrentHashMap<>();
+    private final Map<String, Scroll> scrolls = new ConcurrentHashMap<>();
+    private final Set<String> unhandled = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requests = new AtomicLong();
+
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final int searchHits;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public StubElasticsearchServer(long latencyMillis, long jitterMillis, int searchHits) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.searchHits = searchHits;
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        // Requests mostly sleep, so give each its own thread rather than queueing behind the latency.
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "stub-es");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public long requestCount() {
+        return requests.get();
+    }
+
+    public Set<String> unhandledRequests() {
+        return unhandled;
+    }
+
+    // ------------------ Dispatch ------------------
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requests.incrementAndGet();
+            delay();
+            String method = exchange.getRequestMethod();
+            String[] path = Arrays.stream(exchange.getRequestURI().getPath().split("/"))
+                    .filter(s -> !s.isEmpty())
+                    .toArray(String[]::new);
+            JsonNode body = readBody(exchange.getRequestBody());
+
+            if ("HEAD".equals(method)) {
+                // index/document exists checks: always answer yes
+                respond(exchange, 200, null);
+                return;
+            }
+            boolean scroll = exchange.getRequestURI().getRawQuery() != null
+                    && exchange.getRequestURI().getRawQuery().contains("scroll=");
+            JsonNode response = route(method, path, scroll, body);
+            if (response == null) {
+                unhandled.add(method + " " + exchange.getRequestURI().getPath());
+                respond(exchange, 400, error("unsupported by stub: " + method + " " + exchange.getRequestURI()));
+                return;
+            }
+            respond(exchange, 200, response);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private JsonNode route(String method, String[] path, boolean scroll, JsonNode body) {
+        if (path.length == 0) {
+            return clusterInfo();
+        }
+        if (path.length == 2 && "_search".equals(path[0]) && "scroll".equals(path[1])) {
+            return "DELETE".equals(method) ? clearScroll(body) : continueScroll(body);
+        }
+        if (path.length == 1) {
+            if ("_mget".equals(path[0])) {
+                return multiGet(null, body);
+            }
+            // index creation and similar admin calls
+            return "PUT".equals(method) ? acknowledged(path[0]) : null;
+        }
+        String index = path[0];
+        String action = path[1];
+        if (path.length == 2) {
+            return switch (action) {
+                case "_search" -> scroll ? startScroll(index, body) : search(index, body);
+                case "_count" -> count(index);
+                case "_mget" -> multiGet(index, body);
+                case "_refresh", "_flush" -> shardsEnvelope();
+                case "_doc" -> "POST".equals(method) ? indexDocument(index, UUID.randomUUID().toString(), body) : null;
+                case "_mapping", "_settings", "_alias", "_aliases" -> acknowledged(index);
+                default -> null;
+            };
+        }
+        if (path.length == 3 && ("_doc".equals(action) || "_create".equals(action))) {
+            String id = path[2];
+            return switch (method) {
+                case "PUT", "POST" -> indexDocument(index, id, body);
+                case "GET" -> getDocument(index, id);
+                case "DELETE" -> deleteDocument(index, id);
+                default -> null;
+            };
+        }
+        return null;
+    }
+
+    // ------------------ Document APIs ------------------
+
+    private JsonNode indexDocument(String index, String id, JsonNode source) {
+        JsonNode previous = docs(index).put(id, source);
+        return writeResult(index, id, previous == null ? "created" : "updated");
+    }
+
+    private JsonNode getDocument(String index, String id) {
+        return docResult(index, id, docs(index).get(id));
+    }
+
+    private JsonNode deleteDocument(String index, String id) {
+        JsonNode previous = docs(index).remove(id);
+        return writeResult(index, id, previous == null ? "not_found" : "deleted");
+    }
+
+    private JsonNode multiGet(String defaultIndex, JsonNode body) {
+        ArrayNode docs = mapper.createArrayNode();
+        if (body.has("docs")) {
+            for (JsonNode doc : body.get("docs")) {
+                String index = doc.has("_index") ? doc.get("_index").asText() : defaultIndex;
+                String id = doc.get("_id").asText();
+                docs.add(docResult(index, id, docs(index).get(id)));
+            }
+        }
+        if (body.has("ids")) {
+            for (JsonNode id : body.get("ids")) {
+                docs.add(docResult(defaultIndex, id.asText(), docs(defaultIndex).get(id.asText())));
+            }
+        }
+        ObjectNode response = mapper.createObjectNode();
+        response.set("docs", docs);
+        return response;
+    }
+
+    private JsonNode search(String index, JsonNode body) {
+        int size = body.has("size") ? Math.min(body.get("size").asInt(), searchHits) : searchHits;
+        Map<String, JsonNode> docs = docs(index);
+        List<Map.Entry<String, JsonNode>> page = new ArrayList<>(size);
+        Iterator<Map.Entry<String, JsonNode>> it = docs.entrySet().iterator();
+        while (it.hasNext() && page.size() < size) {
+            page.add(it.next());
+        }
+        return searchResponse(index, page, docs.size(), null);
+    }
+
+    // Scrolls page through a copy of the whole index, so streamed repository queries see every document.
+    private JsonNode startScroll(String index, JsonNode body) {
+        int size = body.has("size") ? body.get("size").asInt() : 10;
+        Scroll scroll = new Scroll(index, new ArrayList<>(docs(index).entrySet()), size);
+        String scrollId = UUID.randomUUID().toString();
+        scrolls.put(scrollId, scroll);
+        return searchResponse(index, scroll.nextPage(), scroll.docs.size(), scrollId);
+    }
+
+    private JsonNode continueScroll(JsonNode body) {
+        String scrollId = body.path("scroll_id").asText();
+        Scroll scroll = scrolls.get(scrollId);
+        if (scroll == null) {
+            return null;
+        }
+        return searchResponse(scroll.index, scroll.nextPage(), scroll.docs.size(), scrollId);
+    }
+
+    private JsonNode clearScroll(JsonNode body) {
+        int freed = 0;
+        JsonNode ids = body.path("scroll_id");
+        for (JsonNode id : ids.isArray() ? ids : mapper.createArrayNode().add(ids)) {
+            if (scrolls.remove(id.asText()) != null) {
+                freed++;
+            }
+        }
+        ObjectNode response = mapper.createObjectNode();
+        response.put("succeeded", true);
+        response.put("num_freed", freed);
+        return response;
+    }
+
+    private JsonNode searchResponse(String index, List<Map.Entry<String, JsonNode>> page, int total, String scrollId) {
+        ArrayNode hits = mapper.createArrayNode();
+        for (Map.Entry<String, JsonNode> entry : page) {
+            ObjectNode hit = hits.addObject();
+            hit.put("_index", index);
+            hit.put("_id", entry.getKey());
+            hit.put("_score", 1.0);
+            hit.put("_seq_no", 0);
+            hit.put("_primary_term", 1);
+            hit.put("_version", 1);
+            hit.set("_source", entry.getValue());
+        }
+
+        ObjectNode response = mapper.createObjectNode();
+        if (scrollId != null) {
+            response.put("_scroll_id", scrollId);
+        }
+        response.put("took", 1);
+        response.put("timed_out", false);
+        response.set("_shards", shards());
+        ObjectNode hitsNode = response.putObject("hits");
+        ObjectNode totalNode = hitsNode.putObject("total");
+        totalNode.put("value", total);
+        totalNode.put("relation", "eq");
+        hitsNode.put("max_score", 1.0);
+        hitsNode.set("hits", hits);
+        return response;
+    }
+
+    private JsonNode count(String index) {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("count", docs(index).size());
+        response.set("_shards", shards());
+        return response;
+    }
+
+    // ------------------ Response Shapes ------------------
+
+    private ObjectNode writeResult(String index, String id, String result) {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("_index", index);
+        response.put("_id", id);
+        response.put("_version", 1);
+        response.put("result", result);
+        response.set("_shards", shards());
+        response.put("_seq_no", 0);
+        response.put("_primary_term", 1);
+        return response;
+    }
+
+    private ObjectNode docResult(String index, String id, JsonNode source) {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("_index", index);
+        response.put("_id", id);
+        response.put("found", source != null);
+        if (source != null) {
+            response.put("_version", 1);
+            response.put("_seq_no", 0);
+            response.put("_primary_term", 1);
+            response.set("_source", source);
+        }
+        return response;
+    }
+
+    private ObjectNode shards() {
+        ObjectNode shards = mapper.createObjectNode();
+        shards.put("total", 1);
+        shards.put("successful", 1);
+        shards.put("skipped", 0);
+        shards.put("failed", 0);
+        return shards;
+    }
+
+    private ObjectNode shardsEnvelope() {
+        ObjectNode response = mapper.createObjectNode();
+        response.set("_shards", shards());
+        return response;
+    }
+
+    private ObjectNode acknowledged(String index) {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("acknowledged", true);
+        response.put("shards_acknowledged", true);
+        response.put("index", index);
+        return response;
+    }
+
+    private ObjectNode clusterInfo() {
+        ObjectNode response = mapper.createObjectNode();
+        response.put("name", "stub");
+        response.put("cluster_name", "stub");
+        response.put("cluster_uuid", "stub");
+        ObjectNode version = response.putObject("version");
+        version.put("number", "8.9.0");
+        version.put("lucene_version", "9.7.0");
+        response.put("tagline", "You Know, for Search");
+        return response;
+    }
+
+    private ObjectNode error(String reason) {
+        ObjectNode response = mapper.createObjectNode();
+        ObjectNode error = response.putObject("error");
+        error.put("type", "illegal_argument_exception");
+        error.put("reason", reason);
+        response.put("status", 400);
+        return response;
+    }
+
+    // ------------------ Plumbing ------------------
+
+    private Map<String, JsonNode> docs(String index) {
+        return indices.computeIfAbsent(index, i -> new ConcurrentHashMap<>());
+    }
+
+    private void delay() throws InterruptedException {
+        long millis = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (millis > 0) {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        }
+    }
+
+    private JsonNode readBody(InputStream in) throws IOException {
+        byte[] bytes = in.readAllBytes();
+        return bytes.length == 0 ? mapper.createObjectNode() : mapper.readTree(bytes);
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        // The Java client refuses responses without this header.
+        exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = mapper.writeValueAsBytes(body);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class Scroll {
+        private final String index;
+        private final List<Map.Entry<String, JsonNode>> docs;
+        private final int size;
+        private int offset;
+
+        private Scroll(String index, List<Map.Entry<String, JsonNode>> docs, int size) {
+            this.index = index;
+            this.docs = docs;
+            this.size = size;
+        }
+
+        private synchronized List<Map.Entry<String, JsonNode>> nextPage() {
+            int end = Math.min(offset + size, docs.size());
+            List<Map.Entry<String, JsonNode>> page = docs.subList(offset, end);
+            offset = end;
+            return page;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.jlss.placelive.search.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jlss.placelive.search.document.GeofenceDocument;
+import com.jlss.placelive.search.document.PlaceDocument;
+import com.jlss.placelive.search.document.TrackerDocument;
+import com.jlss.placelive.search.document.UserDocument;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the HTTP requests sent to {@code SearchController}: the seed data set and one request per
+ * scheduled operation. Ids are dense integers so every generated request refers to seeded data.
+ */
+public class Workload {
+
+    private static final String[] WORDS = {
+            "cafe", "park", "museum", "gym", "library", "market", "beach", "temple", "mall", "stadium",
+            "bakery", "garden", "theatre", "lake", "station", "gallery", "zoo", "pub", "bookstore", "arena"
+    };
+
+    // name, latitude, longitude
+    private static final Object[][] CITIES = {
+            {"Bengaluru", 12.9716, 77.5946}, {"Mumbai", 19.0760, 72.8777}, {"Delhi", 28.7041, 77.1025},
+            {"Chennai", 13.0827, 80.2707}, {"Hyderabad", 17.3850, 78.4867}, {"Pune", 18.5204, 73.8567},
+            {"Kolkata", 22.5726, 88.3639}, {"Jaipur", 26.9124, 75.7873}, {"Kochi", 9.9312, 76.2673},
+            {"Ahmedabad", 23.0225, 72.5714}
+    };
+
+    private final Scenario scenario;
+    private final String baseUri;
+    private final Duration timeout;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public Workload(Scenario scenario, String baseUri) {
+        this.scenario = scenario;
+        this.baseUri = baseUri;
+        this.timeout = scenario.getRequestTimeout();
+    }
+
+    // ------------------ Seed Data ------------------
+
+    public List<HttpRequest> seedRequests(Random random) {
+        List<HttpRequest> requests = new ArrayList<>();
+        for (int i = 0; i < scenario.getPlaces(); i++) {
+            requests.add(json("POST", "/place", place(i, random)));
+        }
+        for (int i = 0; i < scenario.getGeofences(); i++) {
+            requests.add(json("POST", "/geofence", geofence(i, random)));
+        }
+        for (int i = 0; i < scenario.getUsers(); i++) {
+            requests.add(json("POST", "/user", user(i, random)));
+        }
+        for (int i = 0; i < scenario.getTrackers(); i++) {
+            requests.add(json("POST", "/tracker", tracker(i, random)));
+        }
+        return requests;
+    }
+
+    // ------------------ Operations ------------------
+
+    public HttpRequest next(Operation operation, Random random) {
+        return switch (operation) {
+            case TRACKER -> json("POST", "/tracker", tracker(random.nextInt(scenario.getTrackers()), random));
+            case REINDEX -> reindex(random);
+            case SEARCH -> get("/search?q=" + encode(word(random)));
+            case ENHANCED -> get("/search?q=" + encode(word(random)) + "&filter=ENHANCED&userId=" + random.nextInt(scenario.getUsers()));
+        };
+    }
+
+    private HttpRequest reindex(Random random) {
+        return switch (random.nextInt(3)) {
+            case 0 -> {
+                int id = random.nextInt(scenario.getPlaces());
+                yield json("PUT", "/place/" + id, place(id, random));
+            }
+            case 1 -> {
+                int id = random.nextInt(scenario.getGeofences());
+                yield json("PUT", "/geofence/" + id, geofence(id, random));
+            }
+            default -> {
+                int id = random.nextInt(scenario.getUsers());
+                yield json("PUT", "/user/" + id, user(id, random));
+            }
+        };
+    }
+
+    // ------------------ Documents ------------------
+
+    private PlaceDocument place(int id, Random random) {
+        PlaceDocument place = new PlaceDocument();
+        place.setId(String.valueOf(id));
+        place.setName(word(random) + " " + id);
+        place.setDescription("A " + word(random) + " near the " + word(random));
+        place.setCountry("India");
+        place.setCity((String) city(id)[0]);
+        place.setType(word(random));
+        place.setTags(List.of(word(random), word(random)));
+        place.setOwnerId(String.valueOf(random.nextInt(scenario.getUsers())));
+        place.setCreatedAt(new Date());
+        place.setUpdatedAt(new Date());
+        return place;
+    }
+
+    private GeofenceDocument geofence(int id, Random random) {
+        int placeId = placeOfGeofence(id);
+        Object[] city = city(placeId);
+        GeofenceDocument geofence = new GeofenceDocument();
+        geofence.setGeofenceId(String.valueOf(id));
+        geofence.setPlaceId(String.valueOf(placeId));
+        geofence.setLatitude((double) city[1] + (random.nextDouble() - 0.5) * 0.2);
+        geofence.setLongitude((double) city[2] + (random.nextDouble() - 0.5) * 0.2);
+        geofence.setRadius(50 + random.nextInt(450));
+        geofence.setIsActive(true);
+        geofence.setNotificationsEnabled(random.nextBoolean());
+        geofence.setNotificationMessage("Welcome");
+        return geofence;
+    }
+
+    private UserDocument user(int id, Random random) {
+        UserDocument user = new UserDocument();
+        user.setUserId(String.valueOf(id));
+        user.setName("user " + id);
+        user.setEmail("user" + id + "@example.com");
+        user.setCity((String) city(id)[0]);
+        user.setFollowers(randomUserIds(random, 10));
+        user.setFollowing(randomUserIds(random, 10));
+        user.setCloseFriends(randomUserIds(random, 3));
+        user.setAccountCreatedAt(new Date());
+        user.setLastLoginAt(new Date());
+        return user;
+    }
+
+    private TrackerDocument tracker(int id, Random random) {
+        int geofenceId = id % scenario.getGeofences();
+        TrackerDocument tracker = new TrackerDocument();
+        tracker.setId(String.valueOf(id));
+        tracker.setUserId(String.valueOf(random.nextInt(scenario.getUsers())));
+        tracker.setGeofenceId(String.valueOf(geofenceId));
+        tracker.setPlaceId(String.valueOf(placeOfGeofence(geofenceId)));
+        tracker.setUserIn(random.nextBoolean());
+        tracker.setLastVisitAt(new Date());
+        tracker.setUserVisitCount(random.nextInt(100));
+        return tracker;
+    }
+
+    private int placeOfGeofence(int geofenceId) {
+        return geofenceId % scenario.getPlaces();
+    }
+
+    private List<String> randomUserIds(Random random, int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(String.valueOf(random.nextInt(scenario.getUsers())));
+        }
+        return ids;
+    }
+
+    private static Object[] city(int id) {
+        return CITIES[id % CITIES.length];
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    // ------------------ HTTP ------------------
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path)).timeout(timeout).GET().build();
+    }
+
+    private HttpRequest json(String method, String path, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUri + path))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing " + body.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
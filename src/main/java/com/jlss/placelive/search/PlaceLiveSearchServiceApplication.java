@@ -3,8 +3,10 @@ package com.jlss.placelive.search;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class 	PlaceLiveSearchServiceApplication {
 
 	public static void main(String[] args) {
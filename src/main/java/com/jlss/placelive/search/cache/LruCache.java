@@ -0,0 +1,51 @@
+package com.jlss.placelive.search.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small thread-safe map that drops its least recently used entry once it holds {@code maxSize} entries.
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> entries;
+
+    public LruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Stores {@code value} and returns the value it replaced, or null.
+     */
+    public synchronized V put(K key, V value) {
+        return entries.put(key, value);
+    }
+
+    /**
+     * Stores {@code value} unless the key is already present; returns the value now cached.
+     */
+    public synchronized V putIfAbsent(K key, V value) {
+        V existing = entries.putIfAbsent(key, value);
+        return existing != null ? existing : value;
+    }
+
+    public synchronized V remove(K key) {
+        return entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -8,6 +8,7 @@ import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.message.BasicHeader;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -18,11 +19,17 @@ import java.util.Base64;
 @Configuration
 public class ElasticsearchConfig {
 
+    @Value("${elasticsearch.host:localhost}")
+    private String host;
+
+    @Value("${elasticsearch.port:9200}")
+    private int port;
+
     @Bean
     public ElasticsearchClient elasticsearchClient() {
         // Changed: Using new Elasticsearch Java client with a custom RestClientTransport and JacksonJsonpMapper.
         RestClientBuilder builder = RestClient.builder(
-                        new HttpHost("localhost", 9200, "http"))
+                        new HttpHost(host, port, "http"))
                 .setDefaultHeaders(new org.apache.http.Header[]{
                         new BasicHeader("Authorization", "Basic " +
                                 Base64.getEncoder().encodeToString("elastic:QjswXAAW++lajzr5R0*a".getBytes()))
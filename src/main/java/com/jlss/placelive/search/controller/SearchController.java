@@ -4,7 +4,13 @@ import com.jlss.placelive.search.document.GeofenceDocument;
 import com.jlss.placelive.search.document.PlaceDocument;
 import com.jlss.placelive.search.document.TrackerDocument;
 import com.jlss.placelive.search.document.UserDocument;
+import com.jlss.placelive.search.dto.LocateRequestDTO;
+import com.jlss.placelive.search.dto.LocateResultDTO;
+import com.jlss.placelive.search.dto.TrendingPlaceDTO;
+import com.jlss.placelive.search.service.LocateService;
 import com.jlss.placelive.search.service.SearchService;
+import com.jlss.placelive.search.service.TrendingService;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -18,10 +24,14 @@ import java.util.List;
 public class SearchController {
 
     private final SearchService searchService;
+    private final TrendingService trendingService;
+    private final LocateService locateService;
 
     @Autowired
-    public SearchController(SearchService searchService) {
+    public SearchController(SearchService searchService, TrendingService trendingService, LocateService locateService) {
         this.searchService = searchService;
+        this.trendingService = trendingService;
+        this.locateService = locateService;
     }
 
     // Endpoints for indexing (invoked by other microservices)
@@ -118,4 +128,18 @@ public class SearchController {
         return ResponseEntity.ok(results);
     }
 
+    // Trending places by recent entries, served from memory; omit city for the global ranking
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingPlaceDTO>> trending(
+            @RequestParam(value = "city", required = false) String city,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(trendingService.trending(city, limit));
+    }
+
+    // Batch point-in-geofence evaluation against the in-memory index; also advances each user's state
+    @PostMapping("/locate")
+    public ResponseEntity<List<LocateResultDTO>> locate(@Valid @RequestBody LocateRequestDTO request) {
+        return ResponseEntity.ok(locateService.locate(request.getPings()));
+    }
+
 }
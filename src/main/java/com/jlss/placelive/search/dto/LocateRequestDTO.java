@@ -0,0 +1,19 @@
+package com.jlss.placelive.search.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class LocateRequestDTO {
+    // Pings of the same user are applied in list order
+    @NotNull
+    @Size(max = 1000)
+    private List<@Valid @NotNull LocatePingDTO> pings;
+}
@@ -0,0 +1,18 @@
+package com.jlss.placelive.search.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class LocateResultDTO {
+    private String userId;
+    private List<String> geofenceIds;
+    private List<String> entered;
+    private List<String> exited;
+    // Set when this ping could not be evaluated; the user's state is then left unchanged
+    private String error;
+}
@@ -0,0 +1,13 @@
+package com.jlss.placelive.search.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrendingPlaceDTO {
+    private String placeId;
+    private String city;
+    private double score;
+}
@@ -4,8 +4,11 @@ import com.jlss.placelive.search.document.GeofenceDocument;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface GeofenceRepository extends ElasticsearchRepository<GeofenceDocument, String> {
     List<GeofenceDocument> findByPlaceId(String id);
+    // Streamed through a scroll, unlike findAll() which fetches one page the size of the index
+    Stream<GeofenceDocument> streamAllBy();
     // Add custom query methods if needed
 }
@@ -4,7 +4,9 @@ import com.jlss.placelive.search.document.TrackerDocument;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TrackerRepository extends ElasticsearchRepository<TrackerDocument, String> {
@@ -12,4 +14,7 @@ public interface TrackerRepository extends ElasticsearchRepository<TrackerDocume
     List<TrackerDocument> findByGeofenceIdInAndUserIdInAndIsUserInTrue(
             List<String> geofenceIds, List<String> followers
     );
+
+    // Streamed through a scroll, so large user batches are not capped by the result window
+    Stream<TrackerDocument> findByUserIdInAndIsUserInTrue(Collection<String> userIds);
 }
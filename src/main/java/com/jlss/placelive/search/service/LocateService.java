@@ -0,0 +1,15 @@
+package com.jlss.placelive.search.service;
+
+import com.jlss.placelive.search.document.GeofenceDocument;
+import com.jlss.placelive.search.document.TrackerDocument;
+import com.jlss.placelive.search.dto.LocatePingDTO;
+import com.jlss.placelive.search.dto.LocateResultDTO;
+
+import java.util.List;
+
+public interface LocateService {
+     void registerGeofence(GeofenceDocument geofenceDocument);
+     void forgetGeofence(String geofenceId);
+     void applyTracker(TrackerDocument trackerDocument);
+     List<LocateResultDTO> locate(List<LocatePingDTO> pings);
+}
@@ -0,0 +1,13 @@
+package com.jlss.placelive.search.service;
+
+import com.jlss.placelive.search.document.PlaceDocument;
+import com.jlss.placelive.search.dto.TrendingPlaceDTO;
+
+import java.util.List;
+
+public interface TrendingService {
+     void recordEntry(String placeId);
+     void registerPlace(PlaceDocument placeDocument);
+     void forgetPlace(String placeId);
+     List<TrendingPlaceDTO> trending(String city, int limit);
+}
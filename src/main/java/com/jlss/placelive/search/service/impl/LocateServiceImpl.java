@@ -0,0 +1,226 @@
+package com.jlss.placelive.search.service.impl;
+
+import com.jlss.placelive.search.document.GeofenceDocument;
+import com.jlss.placelive.search.document.TrackerDocument;
+import com.jlss.placelive.search.dto.LocatePingDTO;
+import com.jlss.placelive.search.dto.LocateResultDTO;
+import com.jlss.placelive.search.repository.GeofenceRepository;
+import com.jlss.placelive.search.repository.TrackerRepository;
+import com.jlss.placelive.search.service.LocateService;
+import com.jlss.placelive.search.spatial.GeofenceGridIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Point-in-geofence evaluation of location pings against an in-memory grid of active geofences.
+ * Each user's current set of geofences is kept in memory too, so transitions can be computed
+ * without querying ES. Unseen users of a batch are read from the tracker index in chunked terms
+ * queries, and users idle for longer than {@code locate.presence-ttl} are dropped and re-read when
+ * they return.
+ */
+@Slf4j
+@Service
+public class LocateServiceImpl implements LocateService {
+
+    // Well below ES's default index.max_terms_count of 65536
+    static final int PRESENCE_LOAD_CHUNK_SIZE = 1000;
+
+    private final GeofenceRepository geofenceRepo;
+    private final TrackerRepository trackerRepo;
+    private final GeofenceGridIndex index;
+    private final Duration presenceTtl;
+
+    private final Map<String, Presence> presence = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LocateServiceImpl(GeofenceRepository geofenceRepo,
+                             TrackerRepository trackerRepo,
+                             @Value("${locate.grid-cell-degrees:0.01}") double cellDegrees,
+                             @Value("${locate.max-cells-per-geofence:64}") int maxCellsPerFence,
+                             @Value("${locate.presence-ttl:PT30M}") Duration presenceTtl) {
+        this.geofenceRepo = geofenceRepo;
+        this.trackerRepo = trackerRepo;
+        this.index = new GeofenceGridIndex(cellDegrees, maxCellsPerFence);
+        this.presenceTtl = presenceTtl;
+    }
+
+    // An empty index would report every user as outside everything, so refuse to start without it.
+    @PostConstruct
+    void loadGeofences() {
+        try (Stream<GeofenceDocument> geofences = geofenceRepo.streamAllBy()) {
+            geofences.forEach(this::registerGeofence);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not load geofences into the spatial index", e);
+        }
+        log.info("Loaded {} active geofences into the spatial index", index.size());
+    }
+
+    // ------------------ Index Maintenance ------------------
+
+    @Override
+    public void registerGeofence(GeofenceDocument geofenceDocument) {
+        String id = geofenceDocument.getGeofenceId();
+        if (id == null) {
+            return;
+        }
+        if (!Boolean.TRUE.equals(geofenceDocument.getIsActive())) {
+            index.remove(id);
+            return;
+        }
+        double latitude = geofenceDocument.getLatitude();
+        double longitude = geofenceDocument.getLongitude();
+        double radius = geofenceDocument.getRadius();
+        if (!(radius > 0) || Double.isInfinite(radius)
+                || !(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            // Drop any earlier shape too, rather than keep matching pings against a stale circle.
+            log.warn("Not indexing geofence {} with invalid shape lat={}, lon={}, radius={}", id, latitude, longitude, radius);
+            index.remove(id);
+            return;
+        }
+        index.put(id, latitude, longitude, radius);
+    }
+
+    @Override
+    public void forgetGeofence(String geofenceId) {
+        index.remove(geofenceId);
+    }
+
+    @Override
+    public void applyTracker(TrackerDocument trackerDocument) {
+        String geofenceId = trackerDocument.getGeofenceId();
+        if (trackerDocument.getUserId() == null || geofenceId == null) {
+            return;
+        }
+        // Users not loaded yet will pick this up from the tracker index on their first ping.
+        presence.computeIfPresent(trackerDocument.getUserId(), (userId, current) -> {
+            Set<String> updated = new HashSet<>(current.geofenceIds());
+            if (trackerDocument.isUserIn()) {
+                updated.add(geofenceId);
+            } else {
+                updated.remove(geofenceId);
+            }
+            return new Presence(Set.copyOf(updated), current.lastSeenMillis());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${locate.presence-sweep-interval-ms:60000}")
+    public void expireIdleUsers() {
+        long cutoff = System.currentTimeMillis() - presenceTtl.toMillis();
+        presence.values().removeIf(p -> p.lastSeenMillis() < cutoff);
+    }
+
+    // ------------------ Locate ------------------
+
+    @Override
+    public List<LocateResultDTO> locate(List<LocatePingDTO> pings) {
+        Set<String> unseen = new HashSet<>();
+        for (LocatePingDTO ping : pings) {
+            if (!presence.containsKey(ping.getUserId())) {
+                unseen.add(ping.getUserId());
+            }
+        }
+        Map<String, Set<String>> loaded = new HashMap<>();
+        Set<String> failed = new HashSet<>();
+        List<String> toLoad = new ArrayList<>(unseen);
+        for (int from = 0; from < toLoad.size(); from += PRESENCE_LOAD_CHUNK_SIZE) {
+            List<String> chunk = toLoad.subList(from, Math.min(from + PRESENCE_LOAD_CHUNK_SIZE, toLoad.size()));
+            try {
+                loaded.putAll(loadPresence(chunk));
+            } catch (Exception e) {
+                log.warn("Could not load tracker state for {} users", chunk.size(), e);
+                failed.addAll(chunk);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        List<LocateResultDTO> results = new ArrayList<>(pings.size());
+        for (LocatePingDTO ping : pings) {
+            if (failed.contains(ping.getUserId())) {
+                results.add(loadError(ping.getUserId()));
+            } else {
+                results.add(locate(ping, loaded, now));
+            }
+        }
+        return results;
+    }
+
+    private LocateResultDTO locate(LocatePingDTO ping, Map<String, Set<String>> loaded, long now) {
+        LocateResultDTO result = tryLocate(ping, loaded, now);
+        if (result != null) {
+            return result;
+        }
+        // Swept by expireIdleUsers after the unseen check, so nothing is known about the user: load them
+        // like a first-seen user rather than assume they were outside every geofence.
+        String userId = ping.getUserId();
+        try {
+            loaded.putAll(loadPresence(List.of(userId)));
+        } catch (Exception e) {
+            log.warn("Could not load tracker state for user {}", userId, e);
+            return loadError(userId);
+        }
+        return tryLocate(ping, loaded, now);
+    }
+
+    // Returns null, leaving presence untouched, if the user has neither in-memory nor loaded state.
+    private LocateResultDTO tryLocate(LocatePingDTO ping, Map<String, Set<String>> loaded, long now) {
+        String userId = ping.getUserId();
+        List<String> geofenceIds = index.containing(ping.getLatitude(), ping.getLongitude());
+        Set<String> current = Set.copyOf(geofenceIds);
+        List<String> entered = new ArrayList<>();
+        List<String> exited = new ArrayList<>();
+        boolean[] known = {true};
+
+        presence.compute(userId, (id, state) -> {
+            Set<String> previous = state != null ? state.geofenceIds() : loaded.get(id);
+            if (previous == null) {
+                known[0] = false;
+                return null;
+            }
+            for (String geofenceId : geofenceIds) {
+                if (!previous.contains(geofenceId)) {
+                    entered.add(geofenceId);
+                }
+            }
+            for (String geofenceId : previous) {
+                if (!current.contains(geofenceId)) {
+                    exited.add(geofenceId);
+                }
+            }
+            return new Presence(current, now);
+        });
+        return known[0] ? new LocateResultDTO(userId, geofenceIds, entered, exited, null) : null;
+    }
+
+    private static LocateResultDTO loadError(String userId) {
+        return new LocateResultDTO(userId, null, null, null, "Could not load tracker state for user");
+    }
+
+    // One query for the given users; users without any active tracker map to an empty set.
+    private Map<String, Set<String>> loadPresence(List<String> userIds) {
+        Map<String, Set<String>> result = new HashMap<>();
+        userIds.forEach(userId -> result.put(userId, new HashSet<>()));
+        try (Stream<TrackerDocument> trackers = trackerRepo.findByUserIdInAndIsUserInTrue(userIds)) {
+            trackers.filter(t -> t.getGeofenceId() != null && result.containsKey(t.getUserId()))
+                    .forEach(t -> result.get(t.getUserId()).add(t.getGeofenceId()));
+        }
+        result.replaceAll((userId, ids) -> Set.copyOf(ids));
+        return result;
+    }
+
+    private record Presence(Set<String> geofenceIds, long lastSeenMillis) {
+    }
+}
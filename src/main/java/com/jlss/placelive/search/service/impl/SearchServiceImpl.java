@@ -6,6 +6,7 @@ import co.elastic.clients.elasticsearch.core.DeleteResponse;
 import co.elastic.clients.elasticsearch.core.IndexResponse;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.jlss.placelive.search.cache.LruCache;
 import com.jlss.placelive.search.document.GeofenceDocument;
 import com.jlss.placelive.search.document.PlaceDocument;
 import com.jlss.placelive.search.document.TrackerDocument;
@@ -15,8 +16,12 @@ import com.jlss.placelive.search.repository.GeofenceRepository;
 import com.jlss.placelive.search.repository.PlaceRepository;
 import com.jlss.placelive.search.repository.TrackerRepository;
 import com.jlss.placelive.search.repository.UserRepository;
+import com.jlss.placelive.search.service.LocateService;
 import com.jlss.placelive.search.service.SearchService;
+import com.jlss.placelive.search.service.TrendingService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -24,6 +29,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class SearchServiceImpl implements SearchService {
 
@@ -34,15 +40,23 @@ public class SearchServiceImpl implements SearchService {
     private final GeofenceRepository geofenceRepo;
     private final TrackerRepository trackerRepo;
     private final UserRepository userRepo;
+    private final TrendingService trendingService;
+    private final LocateService locateService;
+    // trackerId -> isUserIn as last written here, so most updates need no read of the previous state
+    private final LruCache<String, Boolean> trackerStates;
 
 
     @Autowired
-    public SearchServiceImpl(ElasticsearchClient elasticsearchClient, ElasticsearchClient elasticsearchClient1, PlaceRepository placeRepo, GeofenceRepository geofenceRepo, TrackerRepository trackerRepo, UserRepository userRepo){
+    public SearchServiceImpl(ElasticsearchClient elasticsearchClient, ElasticsearchClient elasticsearchClient1, PlaceRepository placeRepo, GeofenceRepository geofenceRepo, TrackerRepository trackerRepo, UserRepository userRepo, TrendingService trendingService, LocateService locateService,
+                             @Value("${trending.tracker-state-cache-size:100000}") int trackerStateCacheSize){
         this.elasticsearchClient = elasticsearchClient1;
         this.placeRepo = placeRepo;
         this.geofenceRepo = geofenceRepo;
         this.trackerRepo = trackerRepo;
         this.userRepo = userRepo;
+        this.trendingService = trendingService;
+        this.locateService = locateService;
+        this.trackerStates = new LruCache<>(trackerStateCacheSize);
     }
 
     // ------------------ Indexing Methods ------------------
@@ -54,6 +68,7 @@ public class SearchServiceImpl implements SearchService {
         } catch (Exception e) {
             throw new RuntimeException("Error indexing PlaceDocument", e);
         }
+        trendingService.registerPlace(placeDocument);
     }
 
     @Override
@@ -63,6 +78,7 @@ public class SearchServiceImpl implements SearchService {
         } catch (Exception e) {
             throw new RuntimeException("Error indexing GeofenceDocument", e);
         }
+        locateService.registerGeofence(geofenceDocument);
     }
 
     @Override
@@ -76,11 +92,45 @@ public class SearchServiceImpl implements SearchService {
 
     @Override
     public void indexTracker(TrackerDocument trackerDocument) {
+        boolean entered = isEntryTransition(trackerDocument);
         try {
             trackerRepo.save(trackerDocument);
         } catch (Exception e) {
+            if (trackerDocument.getId() != null) {
+                trackerStates.remove(trackerDocument.getId());
+            }
             throw new RuntimeException("Error indexing TrackerDocument", e);
         }
+        locateService.applyTracker(trackerDocument);
+        if (entered) {
+            trendingService.recordEntry(trackerDocument.getPlaceId());
+        }
+    }
+
+    // An entry is isUserIn going false -> true. The previous state comes from trackerStates, and only
+    // uncached "in" updates read it from ES. Swapping the cached state is atomic, so concurrent "in"
+    // updates of a cached tracker count once. Trending is best-effort: an update made through another
+    // instance, or racing the first read of an uncached tracker, can be missed, and a failed read skips
+    // the entry rather than failing the write.
+    private boolean isEntryTransition(TrackerDocument trackerDocument) {
+        if (trackerDocument.getId() == null) {
+            return trackerDocument.isUserIn();
+        }
+        Boolean cached = trackerStates.put(trackerDocument.getId(), trackerDocument.isUserIn());
+        if (!trackerDocument.isUserIn()) {
+            return false;
+        }
+        if (cached != null) {
+            return !cached;
+        }
+        try {
+            return trackerRepo.findById(trackerDocument.getId())
+                    .map(previous -> !previous.isUserIn())
+                    .orElse(true);
+        } catch (Exception e) {
+            log.warn("Could not read previous state of tracker {}; not counting it as an entry", trackerDocument.getId(), e);
+            return false;
+        }
     }
 
 
@@ -91,6 +141,7 @@ public class SearchServiceImpl implements SearchService {
         } catch (Exception e) {
             throw new RuntimeException("Error deleting PlaceDocument", e);
         }
+        trendingService.forgetPlace(String.valueOf(id));
     }
 
     @Override
@@ -100,6 +151,7 @@ public class SearchServiceImpl implements SearchService {
         } catch (Exception e) {
             throw new RuntimeException("Error deleting GeofenceDocument", e);
         }
+        locateService.forgetGeofence(String.valueOf(id));
     }
 
     @Override
@@ -0,0 +1,359 @@
+package com.jlss.placelive.search.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jlss.placelive.search.cache.LruCache;
+import com.jlss.placelive.search.document.PlaceDocument;
+import com.jlss.placelive.search.dto.TrendingPlaceDTO;
+import com.jlss.placelive.search.repository.PlaceRepository;
+import com.jlss.placelive.search.service.TrendingService;
+import com.jlss.placelive.search.sketch.DecayingHeavyHitters;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranks places by recent entries, fed by tracker updates instead of aggregating the tracker index.
+ * One decaying heavy-hitters sketch covers all places and one more is kept for each of at most
+ * {@code trending.max-cities} cities, so memory is bounded overall.
+ * <p>
+ * Cities come from a bounded place-to-city cache filled by place indexing. A place missing from it is
+ * resolved from ES on a background thread, so tracker writes never wait on that lookup.
+ */
+@Slf4j
+@Service
+public class TrendingServiceImpl implements TrendingService {
+
+    private static final String UNKNOWN_CITY = "";
+
+    // Lookups beyond this are dropped; the place is retried on its next entry.
+    private static final int RESOLVE_QUEUE_SIZE = 10_000;
+
+    private final PlaceRepository placeRepo;
+    private final ObjectMapper objectMapper;
+    private final int capacity;
+    private final Duration halfLife;
+    private final int maxCities;
+    private final Path snapshotPath;
+    private final Executor cityResolver;
+
+    // placeId -> city as indexed, UNKNOWN_CITY if the place has none
+    private final LruCache<String, String> placeCities;
+
+    // Guards the sketches and countedIn below.
+    private final Object lock = new Object();
+    private DecayingHeavyHitters global;
+    // Access-ordered, so the first entry is the city counted least recently.
+    private final LinkedHashMap<String, DecayingHeavyHitters> byCity = new LinkedHashMap<>(16, 0.75f, true);
+    // placeId -> key of the city sketch currently counting it; bounded by the city sketches' capacity
+    private final Map<String, String> countedIn = new HashMap<>();
+
+    @Autowired
+    public TrendingServiceImpl(PlaceRepository placeRepo,
+                               ObjectMapper objectMapper,
+                               @Value("${trending.capacity:1000}") int capacity,
+                               @Value("${trending.half-life:PT1H}") Duration halfLife,
+                               @Value("${trending.max-cities:200}") int maxCities,
+                               @Value("${trending.city-cache-size:100000}") int cityCacheSize,
+                               @Value("${trending.snapshot-path:trending-snapshot.json}") String snapshotPath) {
+        this(placeRepo, objectMapper, capacity, halfLife, maxCities, cityCacheSize, snapshotPath, newCityResolver());
+    }
+
+    TrendingServiceImpl(PlaceRepository placeRepo,
+                        ObjectMapper objectMapper,
+                        int capacity,
+                        Duration halfLife,
+                        int maxCities,
+                        int cityCacheSize,
+                        String snapshotPath,
+                        Executor cityResolver) {
+        if (maxCities <= 0) {
+            throw new IllegalArgumentException("trending.max-cities must be positive");
+        }
+        this.placeRepo = placeRepo;
+        this.objectMapper = objectMapper;
+        this.capacity = capacity;
+        this.halfLife = halfLife;
+        this.maxCities = maxCities;
+        this.snapshotPath = Paths.get(snapshotPath);
+        this.cityResolver = cityResolver;
+        this.placeCities = new LruCache<>(cityCacheSize);
+        this.global = new DecayingHeavyHitters(capacity, halfLife, System.currentTimeMillis());
+    }
+
+    private static ExecutorService newCityResolver() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(RESOLVE_QUEUE_SIZE),
+                r -> {
+                    Thread thread = new Thread(r, "trending-city-resolver");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    // ------------------ Event Intake ------------------
+
+    @Override
+    public void recordEntry(String placeId) {
+        if (placeId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            global.add(placeId, now);
+            String cityKey = countedIn.get(placeId);
+            if (cityKey != null) {
+                addToCity(placeId, cityKey, 1, now);
+                return;
+            }
+        }
+        String city = placeCities.get(placeId);
+        if (city != null) {
+            countInCity(placeId, city, 1, now);
+        } else {
+            cityResolver.execute(() -> resolveAndCount(placeId, now));
+        }
+    }
+
+    @Override
+    public void registerPlace(PlaceDocument placeDocument) {
+        String placeId = placeDocument.getId();
+        if (placeId == null) {
+            return;
+        }
+        String city = cityOf(placeDocument);
+        placeCities.put(placeId, city);
+
+        // A place that moved city takes its recent entries along to the new city's ranking.
+        long now = System.currentTimeMillis();
+        String cityKey = UNKNOWN_CITY.equals(city) ? null : normalize(city);
+        synchronized (lock) {
+            String previousKey = countedIn.get(placeId);
+            if (previousKey == null || previousKey.equals(cityKey)) {
+                return;
+            }
+            double moved = removeFromCity(placeId, previousKey, now);
+            if (cityKey != null && moved > 0) {
+                addToCity(placeId, cityKey, moved, now);
+            }
+        }
+    }
+
+    @Override
+    public void forgetPlace(String placeId) {
+        placeCities.remove(placeId);
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            global.remove(placeId, now);
+            String cityKey = countedIn.get(placeId);
+            if (cityKey != null) {
+                removeFromCity(placeId, cityKey, now);
+            }
+        }
+    }
+
+    // Runs on the resolver thread. A failed lookup caches nothing, so the place's next entry retries it.
+    private void resolveAndCount(String placeId, long timestampMillis) {
+        String city = placeCities.get(placeId);
+        if (city == null) {
+            try {
+                city = placeRepo.findById(placeId)
+                        .map(TrendingServiceImpl::cityOf)
+                        .orElse(UNKNOWN_CITY);
+            } catch (Exception e) {
+                log.warn("Could not resolve city for place {}", placeId, e);
+                return;
+            }
+            city = placeCities.putIfAbsent(placeId, city);
+        }
+        countInCity(placeId, city, 1, timestampMillis);
+    }
+
+    private void countInCity(String placeId, String city, double score, long timestampMillis) {
+        if (UNKNOWN_CITY.equals(city)) {
+            return;
+        }
+        synchronized (lock) {
+            addToCity(placeId, normalize(city), score, timestampMillis);
+        }
+    }
+
+    // Callers hold lock.
+    private void addToCity(String placeId, String cityKey, double score, long timestampMillis) {
+        String previousKey = countedIn.get(placeId);
+        if (previousKey != null && !previousKey.equals(cityKey)) {
+            score += removeFromCity(placeId, previousKey, timestampMillis);
+        }
+        DecayingHeavyHitters sketch = byCity.get(cityKey);
+        if (sketch == null) {
+            if (byCity.size() >= maxCities) {
+                dropCity(byCity.keySet().iterator().next());
+            }
+            sketch = new DecayingHeavyHitters(capacity, halfLife, timestampMillis);
+            byCity.put(cityKey, sketch);
+        }
+        String evicted = sketch.add(placeId, score, timestampMillis);
+        if (evicted != null) {
+            countedIn.remove(evicted);
+        }
+        countedIn.put(placeId, cityKey);
+    }
+
+    // Callers hold lock. Returns the score removed; an emptied city sketch is dropped.
+    private double removeFromCity(String placeId, String cityKey, long nowMillis) {
+        countedIn.remove(placeId);
+        DecayingHeavyHitters sketch = byCity.get(cityKey);
+        if (sketch == null) {
+            return 0;
+        }
+        double removed = sketch.remove(placeId, nowMillis);
+        if (sketch.size() == 0) {
+            byCity.remove(cityKey);
+        }
+        return removed;
+    }
+
+    // Callers hold lock.
+    private void dropCity(String cityKey) {
+        DecayingHeavyHitters sketch = byCity.remove(cityKey);
+        if (sketch != null) {
+            sketch.keys().forEach(placeId -> countedIn.remove(placeId, cityKey));
+        }
+    }
+
+    // ------------------ Queries ------------------
+
+    @Override
+    public List<TrendingPlaceDTO> trending(String city, int limit) {
+        boolean isGlobal = city == null || city.isBlank();
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<DecayingHeavyHitters.ScoredKey> top;
+        synchronized (lock) {
+            DecayingHeavyHitters sketch = isGlobal ? global : byCity.get(normalize(city));
+            if (sketch == null) {
+                return Collections.emptyList();
+            }
+            top = sketch.top(limit, System.currentTimeMillis());
+        }
+        return top.stream()
+                .map(k -> new TrendingPlaceDTO(k.getKey(), isGlobal ? knownCity(k.getKey()) : city, k.getScore()))
+                .toList();
+    }
+
+    private String knownCity(String placeId) {
+        String city = placeCities.get(placeId);
+        return UNKNOWN_CITY.equals(city) ? null : city;
+    }
+
+    private static String cityOf(PlaceDocument placeDocument) {
+        String city = placeDocument.getCity();
+        return city == null || city.isBlank() ? UNKNOWN_CITY : city;
+    }
+
+    private static String normalize(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // ------------------ Snapshots ------------------
+
+    @PostConstruct
+    void loadSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try {
+            TrendingSnapshot snapshot = objectMapper.readValue(snapshotPath.toFile(), TrendingSnapshot.class);
+            synchronized (lock) {
+                if (snapshot.getGlobal() != null) {
+                    global = DecayingHeavyHitters.restore(snapshot.getGlobal(), capacity, halfLife);
+                }
+                if (snapshot.getCities() != null) {
+                    snapshot.getCities().entrySet().stream()
+                            .limit(maxCities)
+                            .forEach(e -> {
+                                DecayingHeavyHitters sketch = DecayingHeavyHitters.restore(e.getValue(), capacity, halfLife);
+                                byCity.put(e.getKey(), sketch);
+                                sketch.keys().forEach(placeId -> countedIn.put(placeId, e.getKey()));
+                            });
+                }
+            }
+            if (snapshot.getPlaceCities() != null) {
+                snapshot.getPlaceCities().forEach(placeCities::put);
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable trending snapshot at {}", snapshotPath, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trending.snapshot-interval-ms:60000}")
+    public void writeSnapshot() {
+        TrendingSnapshot snapshot = new TrendingSnapshot();
+        Map<String, DecayingHeavyHitters.Snapshot> cities = new HashMap<>();
+        synchronized (lock) {
+            snapshot.setGlobal(global.snapshot());
+            byCity.forEach((city, sketch) -> cities.put(city, sketch.snapshot()));
+        }
+        snapshot.setCities(cities);
+        // Cities of the places ranked globally, so they are labelled right after a restart.
+        Map<String, String> knownCities = new HashMap<>();
+        snapshot.getGlobal().getCounters().forEach(c -> {
+            String city = placeCities.get(c.getKey());
+            if (city != null) {
+                knownCities.put(c.getKey(), city);
+            }
+        });
+        snapshot.setPlaceCities(knownCities);
+
+        try {
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "trending", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), snapshot);
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write trending snapshot to {}", snapshotPath, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (cityResolver instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+        writeSnapshot();
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class TrendingSnapshot {
+        private DecayingHeavyHitters.Snapshot global;
+        private Map<String, DecayingHeavyHitters.Snapshot> cities;
+        private Map<String, String> placeCities;
+    }
+}
@@ -0,0 +1,188 @@
+package com.jlss.placelive.search.sketch;
+
+import lombok.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving heavy-hitters sketch with exponential time decay.
+ * <p>
+ * Keeps at most {@code capacity} counters, so memory stays bounded no matter how many
+ * distinct keys are seen. Decay uses forward decay: each event is weighted by
+ * {@code 2^((t - landmark) / halfLife)} so existing counters never need touching on insert,
+ * and scores are scaled back to "now" only when they are read.
+ * Not thread-safe on its own; callers synchronize access.
+ */
+public class DecayingHeavyHitters {
+
+    // Rescale once weights reach 2^RESCALE_EXPONENT to keep doubles well inside their precision.
+    private static final double RESCALE_EXPONENT = 40;
+
+    private static final Comparator<Counter> BY_COUNT = Comparator
+            .comparingDouble(Counter::getCount)
+            .thenComparing(Counter::getKey);
+
+    private final int capacity;
+    private final double halfLifeMillis;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> ordered = new TreeSet<>(BY_COUNT);
+    private long landmarkMillis;
+
+    public DecayingHeavyHitters(int capacity, Duration halfLife, long landmarkMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (halfLife.isZero() || halfLife.isNegative()) {
+            throw new IllegalArgumentException("halfLife must be positive");
+        }
+        this.capacity = capacity;
+        this.halfLifeMillis = halfLife.toMillis();
+        this.landmarkMillis = landmarkMillis;
+    }
+
+    /**
+     * Counts one event for {@code key}; returns the key evicted to make room, or null.
+     */
+    public String add(String key, long timestampMillis) {
+        return add(key, 1, timestampMillis);
+    }
+
+    /**
+     * Adds {@code score}, as measured at {@code timestampMillis}, to {@code key}; returns the key
+     * evicted to make room, or null.
+     */
+    public String add(String key, double score, long timestampMillis) {
+        double exponent = (timestampMillis - landmarkMillis) / halfLifeMillis;
+        if (exponent > RESCALE_EXPONENT) {
+            rescale(timestampMillis);
+            exponent = 0;
+        }
+        double weight = score * Math.pow(2, exponent);
+
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            ordered.remove(counter);
+            counter.setCount(counter.getCount() + weight);
+            ordered.add(counter);
+            return null;
+        }
+        String evictedKey = null;
+        if (counters.size() < capacity) {
+            counter = new Counter(key, weight, 0);
+        } else {
+            // Space-Saving: the new key inherits the smallest counter, which bounds its overestimate.
+            Counter evicted = ordered.pollFirst();
+            counters.remove(evicted.getKey());
+            evictedKey = evicted.getKey();
+            counter = new Counter(key, evicted.getCount() + weight, evicted.getCount());
+        }
+        counters.put(key, counter);
+        ordered.add(counter);
+        return evictedKey;
+    }
+
+    /**
+     * Drops {@code key} and returns its score decayed to {@code nowMillis}, or 0 if it was not tracked.
+     */
+    public double remove(String key, long nowMillis) {
+        Counter counter = counters.remove(key);
+        if (counter == null) {
+            return 0;
+        }
+        ordered.remove(counter);
+        return counter.getCount() * Math.pow(2, (landmarkMillis - nowMillis) / halfLifeMillis);
+    }
+
+    public boolean contains(String key) {
+        return counters.containsKey(key);
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(counters.keySet());
+    }
+
+    /**
+     * Returns the {@code limit} highest-scoring keys, with scores decayed to {@code nowMillis}.
+     */
+    public List<ScoredKey> top(int limit, long nowMillis) {
+        double scale = Math.pow(2, (landmarkMillis - nowMillis) / halfLifeMillis);
+        List<ScoredKey> result = new ArrayList<>(Math.min(limit, ordered.size()));
+        for (Counter counter : ordered.descendingSet()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(new ScoredKey(counter.getKey(), counter.getCount() * scale));
+        }
+        return result;
+    }
+
+    public Snapshot snapshot() {
+        List<Counter> copy = new ArrayList<>(counters.size());
+        for (Counter counter : counters.values()) {
+            copy.add(new Counter(counter.getKey(), counter.getCount(), counter.getError()));
+        }
+        return new Snapshot(landmarkMillis, copy);
+    }
+
+    public static DecayingHeavyHitters restore(Snapshot snapshot, int capacity, Duration halfLife) {
+        DecayingHeavyHitters sketch = new DecayingHeavyHitters(capacity, halfLife, snapshot.getLandmarkMillis());
+        snapshot.getCounters().stream()
+                .sorted(BY_COUNT.reversed())
+                .limit(capacity)
+                .forEach(c -> {
+                    Counter counter = new Counter(c.getKey(), c.getCount(), c.getError());
+                    sketch.counters.put(counter.getKey(), counter);
+                    sketch.ordered.add(counter);
+                });
+        return sketch;
+    }
+
+    private void rescale(long newLandmarkMillis) {
+        double factor = Math.pow(2, (landmarkMillis - newLandmarkMillis) / halfLifeMillis);
+        ordered.clear();
+        for (Counter counter : counters.values()) {
+            counter.setCount(counter.getCount() * factor);
+            counter.setError(counter.getError() * factor);
+            ordered.add(counter);
+        }
+        landmarkMillis = newLandmarkMillis;
+    }
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Counter {
+        private String key;
+        private double count;
+        private double error;
+    }
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Snapshot {
+        private long landmarkMillis;
+        private List<Counter> counters;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ScoredKey {
+        private final String key;
+        private final double score;
+    }
+}
@@ -0,0 +1,203 @@
+package com.jlss.placelive.search.spatial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fixed-size lat/lon grid over circular geofences for point-in-geofence lookups.
+ * <p>
+ * Each circle is registered in every cell its bounding box touches, so a lookup only tests
+ * the circles of a single cell. Circles that would span too many cells (very large radius,
+ * or close to a pole) go to a small list that is tested on every lookup instead.
+ * Cells hold immutable arrays replaced on write, so lookups never lock; writes are serialized.
+ */
+public class GeofenceGridIndex {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private static final Circle[] EMPTY = new Circle[0];
+
+    private final double cellDegrees;
+    private final int latCells;
+    private final int lonCells;
+    private final int maxCellsPerFence;
+
+    private final Map<Long, Circle[]> cells = new ConcurrentHashMap<>();
+    private volatile Circle[] oversized = EMPTY;
+    // guarded by this
+    private final Map<String, Circle> byId = new HashMap<>();
+
+    public GeofenceGridIndex(double cellDegrees, int maxCellsPerFence) {
+        if (cellDegrees <= 0 || cellDegrees > 90) {
+            throw new IllegalArgumentException("cellDegrees must be in (0, 90]");
+        }
+        // Circles are indexed in unwrapped longitude and wrapped with floorMod, which only lines up
+        // with the cells of wrapped ping longitudes when every column has the same width.
+        if (!dividesEvenly(180, cellDegrees) || !dividesEvenly(360, cellDegrees)) {
+            throw new IllegalArgumentException("cellDegrees must divide 180 and 360 evenly");
+        }
+        this.cellDegrees = cellDegrees;
+        this.latCells = (int) Math.round(180 / cellDegrees);
+        this.lonCells = (int) Math.round(360 / cellDegrees);
+        this.maxCellsPerFence = maxCellsPerFence;
+    }
+
+    public synchronized void put(String id, double latitude, double longitude, double radiusMeters) {
+        remove(id);
+        Circle circle = new Circle(id, latitude, longitude, radiusMeters);
+        byId.put(id, circle);
+
+        long[] keys = coveredCells(circle);
+        if (keys == null) {
+            oversized = append(oversized, circle);
+            return;
+        }
+        for (long key : keys) {
+            cells.merge(key, new Circle[]{circle}, GeofenceGridIndex::concat);
+        }
+    }
+
+    public synchronized boolean remove(String id) {
+        Circle circle = byId.remove(id);
+        if (circle == null) {
+            return false;
+        }
+        long[] keys = coveredCells(circle);
+        if (keys == null) {
+            oversized = without(oversized, circle);
+            return true;
+        }
+        for (long key : keys) {
+            cells.computeIfPresent(key, (k, existing) -> {
+                Circle[] remaining = without(existing, circle);
+                return remaining.length == 0 ? null : remaining;
+            });
+        }
+        return true;
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * Ids of all geofences whose circle contains the given point.
+     */
+    public List<String> containing(double latitude, double longitude) {
+        List<String> result = new ArrayList<>(2);
+        double latRad = Math.toRadians(latitude);
+        double cosLat = Math.cos(latRad);
+        double lonRad = Math.toRadians(longitude);
+
+        Circle[] candidates = cells.getOrDefault(cellKey(latIndex(latitude), lonIndex(longitude)), EMPTY);
+        for (Circle circle : candidates) {
+            if (circle.contains(latRad, cosLat, lonRad)) {
+                result.add(circle.id);
+            }
+        }
+        for (Circle circle : oversized) {
+            if (circle.contains(latRad, cosLat, lonRad)) {
+                result.add(circle.id);
+            }
+        }
+        return result;
+    }
+
+    // Cell keys covered by the circle's bounding box, or null if it should live in the oversized list.
+    private long[] coveredCells(Circle circle) {
+        double angular = circle.radiusMeters / EARTH_RADIUS_METERS;
+        double dLat = Math.toDegrees(angular);
+        double cosLat = Math.cos(Math.toRadians(circle.latitude));
+        // Exact longitude half-width of a spherical cap; if it reaches past the pole every longitude is covered.
+        if (Math.sin(angular) >= cosLat) {
+            return null;
+        }
+        double dLon = Math.toDegrees(Math.asin(Math.sin(angular) / cosLat));
+
+        int minLat = latIndex(circle.latitude - dLat);
+        int maxLat = latIndex(circle.latitude + dLat);
+        int minLon = (int) Math.floor((circle.longitude - dLon + 180) / cellDegrees);
+        int maxLon = (int) Math.floor((circle.longitude + dLon + 180) / cellDegrees);
+
+        long count = (long) (maxLat - minLat + 1) * (maxLon - minLon + 1);
+        if (count > maxCellsPerFence || maxLon - minLon + 1 >= lonCells) {
+            return null;
+        }
+        long[] keys = new long[(int) count];
+        int i = 0;
+        for (int lat = minLat; lat <= maxLat; lat++) {
+            for (int lon = minLon; lon <= maxLon; lon++) {
+                // wrap across the antimeridian
+                keys[i++] = cellKey(lat, Math.floorMod(lon, lonCells));
+            }
+        }
+        return keys;
+    }
+
+    private static boolean dividesEvenly(double span, double cellDegrees) {
+        double cells = span / cellDegrees;
+        return Math.abs(cells - Math.rint(cells)) < 1e-9 * cells;
+    }
+
+    private int latIndex(double latitude) {
+        int index = (int) Math.floor((latitude + 90) / cellDegrees);
+        return Math.max(0, Math.min(latCells - 1, index));
+    }
+
+    private int lonIndex(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), lonCells);
+    }
+
+    private long cellKey(int latIndex, int lonIndex) {
+        return (long) latIndex * lonCells + lonIndex;
+    }
+
+    private static Circle[] concat(Circle[] a, Circle[] b) {
+        Circle[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    private static Circle[] append(Circle[] array, Circle circle) {
+        return concat(array, new Circle[]{circle});
+    }
+
+    private static Circle[] without(Circle[] array, Circle circle) {
+        return Arrays.stream(array).filter(c -> c != circle).toArray(Circle[]::new);
+    }
+
+    private static final class Circle {
+        private final String id;
+        private final double latitude;
+        private final double longitude;
+        private final double radiusMeters;
+        private final double latRad;
+        private final double cosLat;
+        private final double lonRad;
+        private final double maxHaversine;
+
+        private Circle(String id, double latitude, double longitude, double radiusMeters) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusMeters = radiusMeters;
+            this.latRad = Math.toRadians(latitude);
+            this.cosLat = Math.cos(latRad);
+            this.lonRad = Math.toRadians(longitude);
+            double halfAngle = Math.min(Math.PI, radiusMeters / EARTH_RADIUS_METERS) / 2;
+            this.maxHaversine = Math.sin(halfAngle) * Math.sin(halfAngle);
+        }
+
+        // Compares the haversine term directly against the radius, so no asin/sqrt per test.
+        private boolean contains(double pLatRad, double pCosLat, double pLonRad) {
+            double sinHalfDLat = Math.sin((pLatRad - latRad) / 2);
+            double sinHalfDLon = Math.sin((pLonRad - lonRad) / 2);
+            double h = sinHalfDLat * sinHalfDLat + cosLat * pCosLat * sinHalfDLon * sinHalfDLon;
+            return h <= maxHaversine;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.jlss.placelive.search.service.impl;
+
+import com.jlss.placelive.search.document.GeofenceDocument;
+import com.jlss.placelive.search.document.TrackerDocument;
+import com.jlss.placelive.search.dto.LocatePingDTO;
+import com.jlss.placelive.search.dto.LocateResultDTO;
+import com.jlss.placelive.search.repository.GeofenceRepository;
+import com.jlss.placelive.search.repository.TrackerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LocateServiceImplTest {
+
+    private final GeofenceRepository geofenceRepo = mock(GeofenceRepository.class);
+    private final TrackerRepository trackerRepo = mock(TrackerRepository.class);
+    private LocateServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        when(geofenceRepo.streamAllBy()).thenAnswer(inv -> Stream.of(
+                geofence("mall", 12.97, 77.59, 100),
+                geofence("office", 12.98, 77.59, 100),
+                inactive(geofence("closed", 12.97, 77.59, 100))));
+        when(trackerRepo.findByUserIdInAndIsUserInTrue(any())).thenAnswer(inv -> Stream.empty());
+        service = new LocateServiceImpl(geofenceRepo, trackerRepo, 0.01, 64, Duration.ofMinutes(30));
+        service.loadGeofences();
+    }
+
+    @Test
+    void reportsEntriesAndExitsAcrossPings() {
+        LocateResultDTO first = locateOne("u1", 12.97, 77.59);
+        assertEquals(List.of("mall"), first.getGeofenceIds());
+        assertEquals(List.of("mall"), first.getEntered());
+        assertEquals(List.of(), first.getExited());
+
+        LocateResultDTO same = locateOne("u1", 12.97, 77.59);
+        assertEquals(List.of(), same.getEntered());
+        assertEquals(List.of(), same.getExited());
+
+        LocateResultDTO moved = locateOne("u1", 12.98, 77.59);
+        assertEquals(List.of("office"), moved.getEntered());
+        assertEquals(List.of("mall"), moved.getExited());
+    }
+
+    @Test
+    void appliesPingsOfOneUserInListOrder() {
+        List<LocateResultDTO> results = service.locate(List.of(
+                new LocatePingDTO("u1", 12.97, 77.59),
+                new LocatePingDTO("u1", 0.0, 0.0)));
+
+        assertEquals(List.of("mall"), results.get(0).getEntered());
+        assertEquals(List.of("mall"), results.get(1).getExited());
+    }
+
+    @Test
+    void loadsFirstSeenUsersOnceFromTheTrackerIndex() {
+        doAnswer(inv -> Stream.of(tracker("u1", "mall", true)))
+                .when(trackerRepo).findByUserIdInAndIsUserInTrue(any());
+
+        List<LocateResultDTO> results = service.locate(List.of(
+                new LocatePingDTO("u1", 12.97, 77.59),
+                new LocatePingDTO("u2", 12.97, 77.59)));
+
+        // u1 was already inside according to the tracker index, u2 was not
+        assertEquals(List.of(), results.get(0).getEntered());
+        assertEquals(List.of("mall"), results.get(1).getEntered());
+        verify(trackerRepo, times(1)).findByUserIdInAndIsUserInTrue(any());
+
+        service.locate(List.of(new LocatePingDTO("u1", 12.97, 77.59)));
+        verify(trackerRepo, times(1)).findByUserIdInAndIsUserInTrue(any());
+    }
+
+    @Test
+    void splitsLargeFirstSeenLoadsIntoChunks() {
+        int users = LocateServiceImpl.PRESENCE_LOAD_CHUNK_SIZE + 1;
+        List<LocatePingDTO> pings = IntStream.range(0, users)
+                .mapToObj(i -> new LocatePingDTO("u" + i, 0.0, 0.0))
+                .toList();
+
+        List<LocateResultDTO> results = service.locate(pings);
+
+        assertEquals(users, results.size());
+        assertTrue(results.stream().allMatch(r -> r.getError() == null));
+        verify(trackerRepo, times(2)).findByUserIdInAndIsUserInTrue(any());
+    }
+
+    @Test
+    void loadFailureOnlyFailsFirstSeenUsers() {
+        locateOne("known", 12.97, 77.59);
+        doThrow(new RuntimeException("es down")).when(trackerRepo).findByUserIdInAndIsUserInTrue(any());
+
+        List<LocateResultDTO> results = service.locate(List.of(
+                new LocatePingDTO("known", 12.98, 77.59),
+                new LocatePingDTO("unseen", 12.97, 77.59)));
+
+        assertNull(results.get(0).getError());
+        assertEquals(List.of("office"), results.get(0).getEntered());
+        assertNotNull(results.get(1).getError());
+        assertNull(results.get(1).getGeofenceIds());
+
+        // The failed user is retried on the next batch rather than assumed outside everything.
+        doAnswer(inv -> Stream.of(tracker("unseen", "mall", true)))
+                .when(trackerRepo).findByUserIdInAndIsUserInTrue(any());
+        assertEquals(List.of(), locateOne("unseen", 12.97, 77.59).getEntered());
+    }
+
+    @Test
+    void reloadsUserSweptWhileTheBatchWasLoading() throws InterruptedException {
+        service = new LocateServiceImpl(geofenceRepo, trackerRepo, 0.01, 64, Duration.ZERO);
+        service.loadGeofences();
+        locateOne("u1", 12.97, 77.59);
+        Thread.sleep(5);
+
+        List<Collection<String>> loads = new ArrayList<>();
+        doAnswer(inv -> {
+            Collection<String> userIds = inv.getArgument(0);
+            loads.add(List.copyOf(userIds));
+            if (userIds.contains("u2")) {
+                // u1 passed the unseen check but expires before its ping is applied
+                service.expireIdleUsers();
+                return Stream.empty();
+            }
+            return Stream.of(tracker("u1", "mall", true));
+        }).when(trackerRepo).findByUserIdInAndIsUserInTrue(any());
+
+        List<LocateResultDTO> results = service.locate(List.of(
+                new LocatePingDTO("u2", 0.0, 0.0),
+                new LocatePingDTO("u1", 12.97, 77.59)));
+
+        assertEquals(List.of(List.of("u2"), List.of("u1")), loads);
+        assertNull(results.get(1).getError());
+        assertEquals(List.of(), results.get(1).getEntered());
+    }
+
+    @Test
+    void trackerUpdatesChangeKnownPresence() {
+        locateOne("u1", 12.97, 77.59);
+
+        service.applyTracker(tracker("u1", "mall", false));
+        assertEquals(List.of("mall"), locateOne("u1", 12.97, 77.59).getEntered());
+
+        service.applyTracker(tracker("u1", "office", true));
+        assertEquals(List.of("office"), locateOne("u1", 12.97, 77.59).getExited());
+    }
+
+    @Test
+    void trackerUpdatesForUnloadedUsersAreLeftToTheIndex() {
+        service.applyTracker(tracker("u1", "mall", true));
+
+        assertEquals(List.of("mall"), locateOne("u1", 12.97, 77.59).getEntered());
+        verify(trackerRepo).findByUserIdInAndIsUserInTrue(any());
+    }
+
+    @Test
+    void skipsGeofencesWithInvalidShapes() {
+        service.registerGeofence(geofence("negative", 10, 10, -100));
+        service.registerGeofence(geofence("nan", Double.NaN, 10, 100));
+        service.registerGeofence(geofence("infinite", 10, 10, Double.POSITIVE_INFINITY));
+
+        assertEquals(List.of(), locateOne("u1", 10, 10).getGeofenceIds());
+
+        // an invalid update also drops the shape indexed before it
+        service.registerGeofence(geofence("mall", 12.97, 77.59, 0));
+        assertEquals(List.of(), locateOne("u2", 12.97, 77.59).getGeofenceIds());
+    }
+
+    @Test
+    void inactiveAndDeletedGeofencesAreNotMatched() {
+        service.registerGeofence(inactive(geofence("office", 12.98, 77.59, 100)));
+        service.forgetGeofence("mall");
+
+        assertEquals(List.of(), locateOne("u1", 12.97, 77.59).getGeofenceIds());
+        assertEquals(List.of(), locateOne("u1", 12.98, 77.59).getGeofenceIds());
+    }
+
+    @Test
+    void failsStartupWhenGeofencesCannotBeLoaded() {
+        doThrow(new RuntimeException("es down")).when(geofenceRepo).streamAllBy();
+        LocateServiceImpl failing = new LocateServiceImpl(geofenceRepo, trackerRepo, 0.01, 64, Duration.ofMinutes(30));
+
+        assertThrows(IllegalStateException.class, failing::loadGeofences);
+    }
+
+    private LocateResultDTO locateOne(String userId, double latitude, double longitude) {
+        return service.locate(List.of(new LocatePingDTO(userId, latitude, longitude))).get(0);
+    }
+
+    private static GeofenceDocument geofence(String id, double latitude, double longitude, double radiusMeters) {
+        GeofenceDocument geofence = new GeofenceDocument();
+        geofence.setGeofenceId(id);
+        geofence.setIsActive(true);
+        geofence.setLatitude(latitude);
+        geofence.setLongitude(longitude);
+        geofence.setRadius(radiusMeters);
+        return geofence;
+    }
+
+    private static GeofenceDocument inactive(GeofenceDocument geofence) {
+        geofence.setIsActive(false);
+        return geofence;
+    }
+
+    private static TrackerDocument tracker(String userId, String geofenceId, boolean isUserIn) {
+        TrackerDocument tracker = new TrackerDocument();
+        tracker.setId(userId + "-" + geofenceId);
+        tracker.setUserId(userId);
+        tracker.setGeofenceId(geofenceId);
+        tracker.setUserIn(isUserIn);
+        return tracker;
+    }
+}
@@ -0,0 +1,83 @@
+package com.jlss.placelive.search.service.impl;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.jlss.placelive.search.document.TrackerDocument;
+import com.jlss.placelive.search.repository.GeofenceRepository;
+import com.jlss.placelive.search.repository.PlaceRepository;
+import com.jlss.placelive.search.repository.TrackerRepository;
+import com.jlss.placelive.search.repository.UserRepository;
+import com.jlss.placelive.search.service.LocateService;
+import com.jlss.placelive.search.service.TrendingService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SearchServiceImplTest {
+
+    private final ElasticsearchClient client = mock(ElasticsearchClient.class);
+    private final TrackerRepository trackerRepo = mock(TrackerRepository.class);
+    private final TrendingService trendingService = mock(TrendingService.class);
+    private final LocateService locateService = mock(LocateService.class);
+    private final SearchServiceImpl service = new SearchServiceImpl(client, client, mock(PlaceRepository.class),
+            mock(GeofenceRepository.class), trackerRepo, mock(UserRepository.class), trendingService, locateService, 100);
+
+    @Test
+    void countsAnEntryOnlyWhenTheTrackerTurnsIn() {
+        when(trackerRepo.findById("t1")).thenReturn(Optional.of(tracker("t1", false)));
+
+        service.indexTracker(tracker("t1", true));
+        service.indexTracker(tracker("t1", true));
+        service.indexTracker(tracker("t1", false));
+        service.indexTracker(tracker("t1", true));
+
+        verify(trendingService, times(2)).recordEntry("p1");
+        verify(locateService, times(4)).applyTracker(any());
+        // only the first update needed the previous state from ES
+        verify(trackerRepo, times(1)).findById("t1");
+    }
+
+    @Test
+    void trackerAlreadyInIsNotCountedAgain() {
+        when(trackerRepo.findById("t1")).thenReturn(Optional.of(tracker("t1", true)));
+
+        service.indexTracker(tracker("t1", true));
+
+        verify(trendingService, never()).recordEntry(any());
+    }
+
+    @Test
+    void failedPreviousStateReadDoesNotFailTheWrite() {
+        when(trackerRepo.findById("t1")).thenThrow(new RuntimeException("es down"));
+
+        service.indexTracker(tracker("t1", true));
+
+        verify(trackerRepo).save(any());
+        verify(trendingService, never()).recordEntry(any());
+    }
+
+    @Test
+    void failedWriteForgetsTheCachedState() {
+        when(trackerRepo.findById("t1")).thenReturn(Optional.of(tracker("t1", false)));
+        when(trackerRepo.save(any())).thenThrow(new RuntimeException("es down")).thenAnswer(inv -> inv.getArgument(0));
+
+        assertThrows(RuntimeException.class, () -> service.indexTracker(tracker("t1", true)));
+        service.indexTracker(tracker("t1", true));
+
+        verify(trackerRepo, times(2)).findById("t1");
+        verify(trendingService, times(1)).recordEntry("p1");
+    }
+
+    private static TrackerDocument tracker(String id, boolean isUserIn) {
+        TrackerDocument tracker = new TrackerDocument();
+        tracker.setId(id);
+        tracker.setUserId("u1");
+        tracker.setGeofenceId("g1");
+        tracker.setPlaceId("p1");
+        tracker.setUserIn(isUserIn);
+        return tracker;
+    }
+}
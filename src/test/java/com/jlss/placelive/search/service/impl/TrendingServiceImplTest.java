@@ -0,0 +1,175 @@
+package com.jlss.placelive.search.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jlss.placelive.search.document.PlaceDocument;
+import com.jlss.placelive.search.dto.TrendingPlaceDTO;
+import com.jlss.placelive.search.repository.PlaceRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TrendingServiceImplTest {
+
+    private final PlaceRepository placeRepo = mock(PlaceRepository.class);
+    private final Path snapshotPath;
+    private TrendingServiceImpl service;
+
+    TrendingServiceImplTest() throws IOException {
+        snapshotPath = Files.createTempDirectory("trending").resolve("snapshot.json");
+        service = newService(10);
+    }
+
+    @Test
+    void ranksRegisteredPlacesByCityWithoutReadingEs() {
+        service.registerPlace(place("p1", "Bengaluru"));
+        service.registerPlace(place("p2", "Delhi"));
+        service.recordEntry("p1");
+        service.recordEntry("p1");
+        service.recordEntry("p2");
+
+        assertEquals(List.of("p1"), ids(service.trending("bengaluru", 10)));
+        assertEquals(2, service.trending("Bengaluru", 10).get(0).getScore(), 1e-3);
+        assertEquals(List.of("p2"), ids(service.trending("Delhi", 10)));
+
+        List<TrendingPlaceDTO> global = service.trending(null, 10);
+        assertEquals(List.of("p1", "p2"), ids(global));
+        assertEquals("Bengaluru", global.get(0).getCity());
+        verifyNoInteractions(placeRepo);
+    }
+
+    @Test
+    void resolvesAnUnknownPlaceOnceAndCachesItsCity() {
+        when(placeRepo.findById("p1")).thenReturn(Optional.of(place("p1", "Bengaluru")));
+
+        service.recordEntry("p1");
+        service.recordEntry("p1");
+        service.recordEntry("p1");
+
+        assertEquals(3, service.trending("bengaluru", 10).get(0).getScore(), 1e-3);
+        verify(placeRepo, times(1)).findById("p1");
+    }
+
+    @Test
+    void failedCityLookupIsRetriedOnTheNextEntry() {
+        when(placeRepo.findById("p1"))
+                .thenThrow(new RuntimeException("es down"))
+                .thenReturn(Optional.of(place("p1", "Bengaluru")));
+
+        service.recordEntry("p1");
+        assertEquals(List.of(), service.trending("bengaluru", 10));
+
+        service.recordEntry("p1");
+        assertEquals(List.of("p1"), ids(service.trending("bengaluru", 10)));
+        assertEquals(2, service.trending(null, 10).get(0).getScore(), 1e-3);
+        verify(placeRepo, times(2)).findById("p1");
+    }
+
+    @Test
+    void placesWithoutCityOnlyRankGlobally() {
+        when(placeRepo.findById("missing")).thenReturn(Optional.empty());
+        service.registerPlace(place("p1", null));
+
+        service.recordEntry("p1");
+        service.recordEntry("missing");
+        service.recordEntry("missing");
+
+        assertEquals(List.of("missing", "p1"), ids(service.trending(null, 10)));
+        assertNull(service.trending(null, 10).get(1).getCity());
+        verify(placeRepo, times(1)).findById("missing");
+    }
+
+    @Test
+    void movingAPlaceCarriesItsEntriesToTheNewCity() {
+        service.registerPlace(place("p1", "Bengaluru"));
+        service.recordEntry("p1");
+        service.recordEntry("p1");
+
+        service.registerPlace(place("p1", "Mysuru"));
+
+        assertEquals(List.of(), service.trending("bengaluru", 10));
+        assertEquals(2, service.trending("mysuru", 10).get(0).getScore(), 1e-3);
+        assertEquals("Mysuru", service.trending(null, 10).get(0).getCity());
+
+        service.recordEntry("p1");
+        assertEquals(3, service.trending("mysuru", 10).get(0).getScore(), 1e-3);
+    }
+
+    @Test
+    void forgottenPlaceLeavesEveryRanking() {
+        service.registerPlace(place("p1", "Bengaluru"));
+        service.registerPlace(place("p2", "Bengaluru"));
+        service.recordEntry("p1");
+        service.recordEntry("p2");
+
+        service.forgetPlace("p1");
+
+        assertEquals(List.of("p2"), ids(service.trending(null, 10)));
+        assertEquals(List.of("p2"), ids(service.trending("bengaluru", 10)));
+    }
+
+    @Test
+    void keepsAtMostMaxCitiesDroppingTheLeastRecentlyCounted() {
+        service = newService(2);
+        service.registerPlace(place("p1", "Bengaluru"));
+        service.registerPlace(place("p2", "Delhi"));
+        service.registerPlace(place("p3", "Chennai"));
+
+        service.recordEntry("p1");
+        service.recordEntry("p2");
+        service.recordEntry("p1");
+        service.recordEntry("p3");
+
+        assertEquals(List.of("p1"), ids(service.trending("bengaluru", 10)));
+        assertEquals(List.of(), service.trending("delhi", 10));
+        assertEquals(List.of("p3"), ids(service.trending("chennai", 10)));
+
+        // a dropped city starts over when its places are entered again
+        service.recordEntry("p2");
+        assertEquals(1, service.trending("delhi", 10).get(0).getScore(), 1e-3);
+    }
+
+    @Test
+    void snapshotRestoresRankingsAndCities() {
+        service.registerPlace(place("p1", "Bengaluru"));
+        service.registerPlace(place("p2", "Delhi"));
+        service.recordEntry("p1");
+        service.recordEntry("p1");
+        service.recordEntry("p2");
+        service.writeSnapshot();
+
+        TrendingServiceImpl restored = newService(10);
+        restored.loadSnapshot();
+
+        assertEquals(List.of("p1", "p2"), ids(restored.trending(null, 10)));
+        assertEquals("Delhi", restored.trending(null, 10).get(1).getCity());
+        assertEquals(2, restored.trending("bengaluru", 10).get(0).getScore(), 1e-3);
+
+        restored.recordEntry("p2");
+        assertEquals(2, restored.trending("delhi", 10).get(0).getScore(), 1e-3);
+        verifyNoInteractions(placeRepo);
+    }
+
+    private TrendingServiceImpl newService(int maxCities) {
+        return new TrendingServiceImpl(placeRepo, new ObjectMapper(), 10, Duration.ofHours(1), maxCities, 100,
+                snapshotPath.toString(), Runnable::run);
+    }
+
+    private static PlaceDocument place(String id, String city) {
+        PlaceDocument place = new PlaceDocument();
+        place.setId(id);
+        place.setCity(city);
+        return place;
+    }
+
+    private static List<String> ids(List<TrendingPlaceDTO> places) {
+        return places.stream().map(TrendingPlaceDTO::getPlaceId).toList();
+    }
+}
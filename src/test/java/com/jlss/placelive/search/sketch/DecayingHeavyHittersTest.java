@@ -0,0 +1,134 @@
+package com.jlss.placelive.search.sketch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecayingHeavyHittersTest {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+    private static final long T0 = 1_700_000_000_000L;
+
+    @Test
+    void countsExactlyBelowCapacity() {
+        DecayingHeavyHitters sketch = new DecayingHeavyHitters(10, HOUR, T0);
+        add(sketch, "a", 3, T0);
+        add(sketch, "b", 1, T0);
+
+        List<DecayingHeavyHitters.ScoredKey> top = sketch.top(10, T0);
+        assertEquals(List.of("a", "b"), keys(top));
+        assertEquals(3.0, top.get(0).getScore(), 1e-9);
+        assertEquals(1.0, top.get(1).getScore(), 1e-9);
+    }
+
+    @Test
+    void newKeyEvictsSmallestCounterAndInheritsItsCount() {
+        DecayingHeavyHitters sketch = new DecayingHeavyHitters(2, HOUR, T0);
+        add(sketch, "a", 4, T0);
+        add(sketch, "b", 2, T0);
+
+        assertEquals("b", sketch.add("c", T0));
+        assertFalse(sketch.contains("b"));
+
+        List<DecayingHeavyHitters.ScoredKey> top = sketch.top(2, T0);
+        assertEquals(List.of("a", "c"), keys(top));
+        assertEquals(3.0, top.get(1).getScore(), 1e-9);
+        DecayingHeavyHitters.Counter c = sketch.snapshot().getCounters().stream()
+                .filter(counter -> counter.getKey().equals("c")).findFirst().orElseThrow();
+        assertEquals(2.0, c.getError(), 1e-9);
+    }
+
+    @Test
+    void scoresHalveEveryHalfLife() {
+        DecayingHeavyHitters sketch = new DecayingHeavyHitters(10, HOUR, T0);
+        add(sketch, "a", 4, T0);
+
+        assertEquals(2.0, sketch.top(1, T0 + HOUR.toMillis()).get(0).getScore(), 1e-9);
+        assertEquals(1.0, sketch.top(1, T0 + 2 * HOUR.toMillis()).get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    void recentEventsOutrankOlderHeavierOnes() {
+        DecayingHeavyHitters sketch = new DecayingHeavyHitters(10, HOUR, T0);
+        add(sketch, "old", 4, T0);
+        long later = T0 + 3 * HOUR.toMillis();
+        add(sketch, "new", 1, later);
+
+        assertEquals(List.of("new", "old"), keys(sketch.top(2, later)));
+    }
+
+    @Test
+    void rescalesFarFromLandmarkWithoutLosingScores() {
+        DecayingHeavyHitters sketch = new DecayingHeavyHitters(10, HOUR, T0);
+        add(sketch, "a", 2, T0);
+        long far = T0 + 45 * HOUR.toMillis();
+        add(sketch, "b", 1, far);
+        add(sketch, "b", 1, far);
+
+        List<DecayingHeavyHitters.ScoredKey> top = sketch.top(2, far);
+        assertEquals(List.of("b", "a"), keys(top));
+        assertEquals(2.0, top.get(0).getScore(), 1e-9);
+        assertEquals(2.0 * Math.pow(2, -45), top.get(1).getScore(), 1e-20);
+        assertEquals(far, sketch.snapshot().getLandmarkMillis());
+    }
+
+    @Test
+    void removeReturnsDecayedScoreAndScoreCanBeAddedElsewhere() {
+        DecayingHeavyHitters from = new DecayingHeavyHitters(10, HOUR, T0);
+        DecayingHeavyHitters to = new DecayingHeavyHitters(10, HOUR, T0 + 5000);
+        add(from, "a", 4, T0);
+        long now = T0 + HOUR.toMillis();
+
+        double moved = from.remove("a", now);
+        assertEquals(2.0, moved, 1e-9);
+        assertFalse(from.contains("a"));
+        assertTrue(from.top(10, now).isEmpty());
+        assertEquals(0.0, from.remove("a", now));
+
+        to.add("a", moved, now);
+        assertEquals(2.0, to.top(1, now).get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    void snapshotRoundTripsThroughJson() throws Exception {
+        DecayingHeavyHitters sketch = new DecayingHeavyHitters(3, HOUR, T0);
+        add(sketch, "a", 5, T0);
+        add(sketch, "b", 3, T0);
+        add(sketch, "c", 2, T0);
+        sketch.add("d", T0);
+
+        ObjectMapper mapper = new ObjectMapper();
+        DecayingHeavyHitters.Snapshot snapshot = mapper.readValue(
+                mapper.writeValueAsString(sketch.snapshot()), DecayingHeavyHitters.Snapshot.class);
+        DecayingHeavyHitters restored = DecayingHeavyHitters.restore(snapshot, 3, HOUR);
+
+        long later = T0 + HOUR.toMillis();
+        assertEquals(keys(sketch.top(3, later)), keys(restored.top(3, later)));
+        assertEquals(sketch.top(1, later).get(0).getScore(), restored.top(1, later).get(0).getScore(), 1e-9);
+    }
+
+    @Test
+    void restoreIntoSmallerCapacityKeepsLargestCounters() {
+        DecayingHeavyHitters sketch = new DecayingHeavyHitters(3, HOUR, T0);
+        add(sketch, "a", 5, T0);
+        add(sketch, "b", 3, T0);
+        add(sketch, "c", 1, T0);
+
+        DecayingHeavyHitters restored = DecayingHeavyHitters.restore(sketch.snapshot(), 2, HOUR);
+        assertEquals(List.of("a", "b"), keys(restored.top(3, T0)));
+    }
+
+    private static void add(DecayingHeavyHitters sketch, String key, int times, long timestampMillis) {
+        for (int i = 0; i < times; i++) {
+            sketch.add(key, timestampMillis);
+        }
+    }
+
+    private static List<String> keys(List<DecayingHeavyHitters.ScoredKey> top) {
+        return top.stream().map(DecayingHeavyHitters.ScoredKey::getKey).toList();
+    }
+}
@@ -0,0 +1,106 @@
+package com.jlss.placelive.search.spatial;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeofenceGridIndexTest {
+
+    // metres per degree of latitude on the sphere the index uses
+    private static final double METERS_PER_DEGREE = 6_371_008.8 * Math.PI / 180;
+
+    private final GeofenceGridIndex index = new GeofenceGridIndex(0.01, 64);
+
+    @Test
+    void containsPointsJustInsideRadiusOnly() {
+        index.put("g", 12.97, 77.59, 100);
+
+        assertEquals(List.of("g"), index.containing(12.97 + 99 / METERS_PER_DEGREE, 77.59));
+        assertEquals(List.of(), index.containing(12.97 + 101 / METERS_PER_DEGREE, 77.59));
+    }
+
+    @Test
+    void findsCircleFromNeighbouringCell() {
+        // centre just below a 0.01 degree cell boundary, point just above it
+        index.put("g", 12.9999, 77.5950, 50);
+
+        assertEquals(List.of("g"), index.containing(13.0001, 77.5950));
+    }
+
+    @Test
+    void returnsEveryOverlappingCircle() {
+        index.put("a", 12.9716, 77.5946, 200);
+        index.put("b", 12.9730, 77.5946, 300);
+
+        assertEquals(List.of("a", "b"), index.containing(12.9716, 77.5946).stream().sorted().toList());
+        assertEquals(List.of("b"), index.containing(12.9745, 77.5946));
+    }
+
+    @Test
+    void wrapsAcrossTheAntimeridian() {
+        index.put("east", 0, 179.9995, 100);
+        index.put("west", 0, -179.9995, 100);
+
+        assertEquals(List.of("east", "west"), index.containing(0, 180).stream().sorted().toList());
+        assertEquals(List.of("east", "west"), index.containing(0, -180).stream().sorted().toList());
+        assertEquals(List.of("east"), index.containing(0, 179.999));
+        assertEquals(List.of("west"), index.containing(0, -179.999));
+    }
+
+    @Test
+    void wrapsAcrossTheAntimeridianWithCoarseCells() {
+        GeofenceGridIndex coarse = new GeofenceGridIndex(0.75, 64);
+        coarse.put("x", 0, 179.9, 40_000);
+
+        assertEquals(List.of("x"), coarse.containing(0, -179.8));
+        assertEquals(List.of("x"), coarse.containing(0, 179.6));
+        assertEquals(List.of(), coarse.containing(0, -179.4));
+    }
+
+    @Test
+    void circleCoveringThePoleMatchesAnyLongitude() {
+        index.put("pole", 89.999, 0, 500);
+
+        assertEquals(List.of("pole"), index.containing(90, 0));
+        assertEquals(List.of("pole"), index.containing(89.9995, 120));
+        assertEquals(List.of("pole"), index.containing(89.9995, -60));
+        assertEquals(List.of(), index.containing(89.99, 180));
+    }
+
+    @Test
+    void oversizedCircleIsStillMatchedAndRemovable() {
+        index.put("big", 0, 0, 2_000_000);
+
+        assertEquals(List.of("big"), index.containing(10, 0));
+        assertEquals(List.of(), index.containing(30, 0));
+
+        assertTrue(index.remove("big"));
+        assertEquals(List.of(), index.containing(10, 0));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void putReplacesPreviousShapeAndRemoveClearsIt() {
+        index.put("g", 12.97, 77.59, 100);
+        index.put("g", 28.70, 77.10, 100);
+
+        assertEquals(List.of(), index.containing(12.97, 77.59));
+        assertEquals(List.of("g"), index.containing(28.70, 77.10));
+        assertEquals(1, index.size());
+
+        assertTrue(index.remove("g"));
+        assertFalse(index.remove("g"));
+        assertEquals(List.of(), index.containing(28.70, 77.10));
+    }
+
+    @Test
+    void rejectsInvalidCellSize() {
+        assertThrows(IllegalArgumentException.class, () -> new GeofenceGridIndex(0, 64));
+        assertThrows(IllegalArgumentException.class, () -> new GeofenceGridIndex(91, 64));
+        // 360 / 0.7 leaves a narrower last column, which would miss circles across the antimeridian
+        assertThrows(IllegalArgumentException.class, () -> new GeofenceGridIndex(0.7, 64));
+        assertThrows(IllegalArgumentException.class, () -> new GeofenceGridIndex(7, 64));
+    }
+}